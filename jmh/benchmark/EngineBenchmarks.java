@@ -0,0 +1,352 @@
+package benchmark;
+
+import app.users.normal.User;
+import fileio.commands.handler.CommandHandler;
+import fileio.commands.search.SearchCommand;
+import fileio.commands.statistics.EndProgramResponse;
+import fileio.commands.utils.stats.StatResult;
+import fileio.commands.wrapper.CommandWrapper;
+import fileio.input.SongInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import visitor.VisitableUser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the command engine: song searches (per filter), player updates, wrapped,
+ * end of program statistics and whole commands, for every library size and user count.
+ * <p>
+ * Every state builds its own fixture once per trial. The player benchmarks move time forward,
+ * so they run a fixed batch of invocations per iteration, after restarting all players: every
+ * iteration plays the same files from the same positions. Their score is the time of a whole
+ * batch. The end of program benchmark pays out and clears the listens of all users, so before
+ * each invocation all players are restarted and listen for the same time again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmarks {
+    private static final long SEED = 42;
+    /* Invocations of the player benchmarks per iteration */
+    private static final int PLAYER_BATCH = 1000;
+    /* Precomputed search filters, a power of two */
+    private static final int FILTERS = 1024;
+    /* Seconds between two player updates */
+    private static final int PLAYER_STEP = 7;
+    /* Seconds of listening paid out by each end of program */
+    private static final int LISTEN_TIME = 600;
+    /* Seconds between two commands */
+    private static final int COMMAND_STEP = 3;
+    private static final int PLAYER_KINDS = 4;
+
+    private static final String[] COMMAND_MIX = {"status", "search", "select", "load", "like",
+            "next", "getTop5Songs", "repeat", "status", "getTop5Albums", "wrapped", "prev"};
+
+    /**
+     * Engine state for one library size and user count
+     */
+    @State(Scope.Benchmark)
+    public abstract static class Fixture {
+        @Param({"1000", "10000"})
+        private int librarySize;
+        @Param({"100", "1000"})
+        private int userCount;
+
+        protected EngineFixture fixture;
+        private int invocation;
+
+        /**
+         * Builds the fixture, then the state of the benchmark
+         */
+        @Setup(Level.Trial)
+        public final void createFixture() {
+            fixture = new EngineFixture(librarySize, userCount, SEED);
+            prepare();
+        }
+
+        /**
+         * Prepares the state of the benchmark, once the fixture is built
+         */
+        protected void prepare() {
+        }
+
+        /**
+         * @return The index of the next invocation
+         */
+        protected final int next() {
+            return invocation++;
+        }
+
+        /**
+         * Restarts the invocation indexes
+         */
+        protected final void resetInvocations() {
+            invocation = 0;
+        }
+    }
+
+    /**
+     * The fixture, as built
+     */
+    @State(Scope.Benchmark)
+    public static class Engine extends Fixture {
+    }
+
+    /**
+     * Song search filters of one type, with values taken from library songs
+     */
+    @State(Scope.Benchmark)
+    public static class Searches extends Fixture {
+        @Param({"name", "album", "tags", "lyrics", "genre", "releaseYear", "artist"})
+        private String filterName;
+
+        private final SearchCommand.SearchFilter[] filters =
+                new SearchCommand.SearchFilter[FILTERS];
+
+        @Override
+        protected void prepare() {
+            for (int i = 0; i < FILTERS; i++) {
+                SongInput song = fixture.song(i * 31);
+                filters[i] = fixture.filter(filterName, switch (filterName) {
+                    case "name" -> song.getName().substring(0, 6);
+                    case "album" -> song.getAlbum();
+                    case "tags" -> List.of(song.getTags().get(0));
+                    case "lyrics" -> song.getLyrics().split(" ")[0];
+                    case "genre" -> song.getGenre();
+                    case "releaseYear" -> ">" + song.getReleaseYear();
+                    case "artist" -> song.getArtist();
+                    default -> throw new IllegalArgumentException("Unknown filter " + filterName);
+                });
+            }
+        }
+
+        /**
+         * @return The filter of the next invocation
+         */
+        SearchCommand.SearchFilter nextFilter() {
+            return filters[next() & (FILTERS - 1)];
+        }
+    }
+
+    /**
+     * All players, restarted before every iteration
+     */
+    @State(Scope.Benchmark)
+    public static class Players extends Fixture {
+        /**
+         * Restarts the players at the current timestamp
+         */
+        @Setup(Level.Iteration)
+        public void restartPlayers() {
+            fixture.restartPlayers();
+            resetInvocations();
+        }
+    }
+
+    /**
+     * The players playing one kind of source: a song, a playlist, a shuffled playlist or
+     * a podcast (the fixture users play them in turns)
+     */
+    @State(Scope.Benchmark)
+    public static class PlayerKind extends Players {
+        private static final String[] KINDS = {"song", "playlist", "playlistShuffled",
+                "podcast"};
+
+        @Param({"song", "playlist", "playlistShuffled", "podcast"})
+        private String kind;
+
+        private int offset;
+
+        @Override
+        protected void prepare() {
+            offset = List.of(KINDS).indexOf(kind);
+        }
+
+        /**
+         * @return The user of the next invocation, playing the chosen kind of source
+         */
+        User nextUser() {
+            return fixture.user(next() * PLAYER_KINDS + offset);
+        }
+    }
+
+    /**
+     * Listens paid out by an end of program, refilled before every invocation
+     */
+    @State(Scope.Benchmark)
+    public static class Ending extends Fixture {
+        private CommandWrapper command;
+
+        /**
+         * Lets all players listen for the same time again, from restarted players
+         */
+        @Setup(Level.Invocation)
+        public void listen() {
+            fixture.restartPlayers();
+            fixture.getSession().getUserDatabase()
+                    .updateAllPlayers(fixture.advance(LISTEN_TIME));
+            command = fixture.command("endProgram", null);
+        }
+    }
+
+    /**
+     * A fixed mix of commands for all users, run in a cycle
+     */
+    @State(Scope.Benchmark)
+    public static class Commands extends Fixture {
+        private CommandWrapper[] commands;
+
+        @Override
+        protected void prepare() {
+            commands = new CommandWrapper[COMMAND_MIX.length * fixture.getUserCount()];
+            for (int i = 0; i < commands.length; i++) {
+                commands[i] = createCommand(fixture, i);
+            }
+        }
+
+        /**
+         * @return The next command of the cycle, at the next timestamp
+         */
+        CommandWrapper nextCommand() {
+            CommandWrapper command = commands[next() % commands.length];
+            command.setTimestamp(fixture.advance(COMMAND_STEP));
+            return command;
+        }
+    }
+
+    /**
+     * @param state the search filters
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void search(final Searches state, final Blackhole sink) {
+        sink.consume(state.fixture.getSession().getLibrary()
+                .getSongsByFilters(state.nextFilter()));
+    }
+
+    /**
+     * @param state the players
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, batchSize = PLAYER_BATCH)
+    @Measurement(iterations = 5, batchSize = PLAYER_BATCH)
+    public void updateStatus(final PlayerKind state, final Blackhole sink) {
+        User user = state.nextUser();
+        user.getMediaPlayer().updateStatus(state.fixture.advance(PLAYER_STEP));
+        sink.consume(user);
+    }
+
+    /**
+     * @param state the players
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, batchSize = PLAYER_BATCH)
+    @Measurement(iterations = 5, batchSize = PLAYER_BATCH)
+    public void updateAllPlayers(final Players state) {
+        state.fixture.getSession().getUserDatabase()
+                .updateAllPlayers(state.fixture.advance(PLAYER_STEP));
+    }
+
+    /**
+     * @param state the engine
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void wrappedUser(final Engine state, final Blackhole sink) {
+        sink.consume(wrapped(state.fixture.user(state.next())));
+    }
+
+    /**
+     * @param state the engine
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void wrappedArtist(final Engine state, final Blackhole sink) {
+        List<String> artists = state.fixture.getArtists();
+        sink.consume(wrapped(state.fixture.getSession().getUserDatabase().getArtistByName(
+                artists.get(state.next() % artists.size()))));
+    }
+
+    /**
+     * @param state the engine
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void wrappedHost(final Engine state, final Blackhole sink) {
+        List<String> hosts = state.fixture.getHosts();
+        sink.consume(wrapped(state.fixture.getSession().getUserDatabase().getHostByName(
+                hosts.get(state.next() % hosts.size()))));
+    }
+
+    /**
+     * @param state the listens to pay out
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void endProgram(final Ending state, final Blackhole sink) {
+        EndProgramResponse response = new EndProgramResponse("endProgram");
+        response.getResponse(state.fixture.getSession().getLibrary(),
+                state.fixture.getSession().getUserDatabase(), state.command);
+        sink.consume(response);
+    }
+
+    /**
+     * @param state the command cycle
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void executeCommand(final Commands state, final Blackhole sink) {
+        sink.consume(CommandHandler.executeCommand(state.fixture.getSession(),
+                state.nextCommand()).toNode());
+    }
+
+    /**
+     * @param entity the user, artist or host
+     * @return The wrapped statistics of the entity
+     */
+    private static StatResult wrapped(final VisitableUser entity) {
+        StatResult result = new StatResult();
+        entity.accept(result);
+        return result;
+    }
+
+    /**
+     * @param fixture the engine state
+     * @param index   the command index
+     * @return The command of the mix at that index, for the next user
+     */
+    private static CommandWrapper createCommand(final EngineFixture fixture, final int index) {
+        String name = COMMAND_MIX[index % COMMAND_MIX.length];
+        String username = fixture.user(index / COMMAND_MIX.length).getName();
+
+        if (name.equals("search")) {
+            return fixture.command(name, username, "type", "song",
+                    "filters", Map.of("genre", fixture.song(index).getGenre()));
+        }
+        if (name.equals("select")) {
+            return fixture.command(name, username, "itemNumber", 1);
+        }
+        return fixture.command(name, username);
+    }
+}
@@ -6,23 +6,35 @@ import factory.tie.TieFactory;
 import app.utils.constants.users.ArtistConstants;
 import app.utils.constants.users.HostConstants;
 import app.utils.constants.users.UserConstants;
+import databases.EngineSession;
 import databases.UserDatabase;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.Host;
 import app.users.tie.TiedUserEntity;
 import fileio.input.LibraryInput;
-import app.audiofiles.collections.Podcast;
-import app.audiofiles.Song;
 import fileio.commands.wrapper.CommandWrapper;
 import databases.Library;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
- * Utility class for admin operations
+ * Utility class for admin operations, over the databases of a session
  */
-public final class Admin {
-    private static Library library = Library.getInstance();
-    private static UserDatabase userDatabase = UserDatabase.getInstance();
+public final class Admin implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Library library;
+    private final UserDatabase userDatabase;
+    private final TieFactory tieFactory;
+
+    public Admin(final EngineSession session) {
+        this.library = session.getLibrary();
+        this.userDatabase = session.getUserDatabase();
+        this.tieFactory = new TieFactory(session);
+    }
 
     /**
      * String builder utility method
@@ -155,7 +167,6 @@ public final class Admin {
             return message + UserConstants.USERNAME_TAKEN;
         }
 
-        TieFactory tieFactory = new TieFactory();
         if (command.getType().equals("user")) {
             userDatabase.addUser(tieFactory.createUser(command));
         } else if (command.getType().equals("artist")) {
@@ -167,7 +178,7 @@ public final class Admin {
             /* Check for existing podcasts */
             library.getPodcasts().forEach(podcast -> {
                 if (podcast.getOwner().equals(host.getName())) {
-                    host.getPodcasts().add(podcast);
+                    host.attachPodcast(podcast, userDatabase.getUsers());
                 }
             });
         }
@@ -211,7 +222,6 @@ public final class Admin {
             return host.getName() + HostConstants.DUPLICATE_PODCAST;
         }
 
-        TieFactory tieFactory = new TieFactory();
         return host.addPodcast(tieFactory.createPodcast(command));
     }
 
@@ -254,7 +264,6 @@ public final class Admin {
             return artist.getName() + ArtistConstants.DUPLICATE_ALBUM;
         }
 
-        TieFactory tieFactory = new TieFactory();
         return artist.addAlbum(tieFactory.createAlbum(command));
     }
 
@@ -305,11 +314,13 @@ public final class Admin {
      *
      * @param libraryInput the library input
      */
-    public static void addToDatabase(final LibraryInput libraryInput) {
-        libraryInput.getSongs().forEach(songInput -> library.addSong(new Song(songInput)));
+    public void addToDatabase(final LibraryInput libraryInput) {
+        libraryInput.getSongs().forEach(songInput ->
+                library.addSong(tieFactory.createSong(songInput)));
         libraryInput.getPodcasts().forEach(podcastInput ->
-                library.addPodcast(new Podcast(podcastInput))
+                library.addPodcast(tieFactory.createPodcast(podcastInput))
         );
-        libraryInput.getUsers().forEach(userInput -> userDatabase.addUser(new User(userInput)));
+        libraryInput.getUsers().forEach(userInput ->
+                userDatabase.addUser(tieFactory.createUser(userInput)));
     }
 }
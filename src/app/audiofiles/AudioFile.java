@@ -2,13 +2,12 @@ package app.audiofiles;
 
 import app.users.normal.User;
 import app.utils.audiostate.AudioFileState;
+import app.utils.audiostate.ShuffleOrder;
 import app.utils.constants.audio.PlaylistConstants;
 import app.utils.constants.audio.PodcastConstants;
 import app.utils.constants.users.UserConstants;
 import app.utils.tie.TiedEntity;
 
-import java.util.List;
-
 /**
  * Interface for all audio file types
  */
@@ -113,9 +112,9 @@ public interface AudioFile extends TiedEntity {
      * Shuffles the file if it is a playlist
      *
      * @param seed the seed of the random indexes
-     * @return The shuffle indexes or null
+     * @return The shuffle order or null
      */
-    default List<Integer> shuffleFile(final Integer seed) {
+    default ShuffleOrder shuffleFile(final Integer seed) {
         return null;
     }
 
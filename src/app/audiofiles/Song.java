@@ -2,30 +2,83 @@ package app.audiofiles;
 
 import app.audiofiles.collections.Album;
 import app.users.normal.User;
+import databases.EngineSession;
 import databases.Library;
+import databases.catalog.SongCatalog;
 import app.mediaplayer.MediaPlayer;
-import fileio.commands.statistics.EndProgramResponse;
 import fileio.input.SongInput;
 import lombok.Getter;
+import lombok.Setter;
 import app.utils.audiostate.AudioFileState;
 import app.utils.constants.player.MediaPlayerConstants;
 import app.utils.constants.users.UserConstants;
 
-import java.util.ArrayList;
-import java.util.Objects;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
 
 /**
- * SongInput wrapper with added functionalities.
- * In all AudioFile collection operations,
+ * Handle over the song data kept in the song catalog, with added functionalities.
+ * The song only gets an id and a catalog row once it is added to the library, and keeps its
+ * own copy of the data again once removed from it. In all AudioFile collection operations,
  * it is considered a collection only containing the song itself
  */
-public final class Song implements AudioFile {
-    private final SongInput songInput;
+public final class Song implements AudioFile, Serializable {
+    public static final int UNREGISTERED = -1;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* Dense id, given when the song is added to the library and kept after it is removed */
     @Getter
-    private int likes;
+    private int id = UNREGISTERED;
+    private final SongCatalog catalog;
+    /* The session the song belongs to */
+    private final EngineSession session;
+
+    /* The song data and likes while they are not in the catalog, before the song is added to
+       the library and after it is removed from it */
+    private SongInput detached;
+    private int detachedLikes;
+
+    /* The album the song was released on, whose likes include the song likes */
+    @Getter
+    @Setter
+    private Album parentAlbum;
+
+    /* Resolved album and the library album version it was resolved for */
+    private Album album;
+    private long albumVersion = -1;
+
+    public Song(final SongInput songInput, final EngineSession session) {
+        this.session = session;
+        this.catalog = session.getLibrary().getSongCatalog();
+        this.detached = songInput;
+    }
+
+    /**
+     * Moves the song data into the catalog, under a new id. Called when the song is added to
+     * the library
+     */
+    public void register() {
+        id = session.getLibrary().registerSong(this, detached);
+        catalog.addLikes(id, detachedLikes);
+        detached = null;
+    }
+
+    /**
+     * Copies the song data out of the catalog, before its row is tombstoned. Called when the
+     * song is removed from the library, as playlists and listens may still refer to it
+     */
+    public void detach() {
+        detached = catalog.inputOf(id);
+        detachedLikes = catalog.likesOf(id);
+    }
 
-    public Song(final SongInput songInput) {
-        this.songInput = songInput;
+    /**
+     * @return If the song data is not in the catalog (the song is not in the library)
+     */
+    public boolean isDetached() {
+        return detached != null;
     }
 
     /**
@@ -34,21 +87,40 @@ public final class Song implements AudioFile {
      * @param value the value to be added
      */
     public void addRevenue(final double value) {
-        EndProgramResponse.getSongRevenues().merge(this, value, Double::sum);
+        session.getEffects().apply(() -> session.getRevenueLedger().addRevenue(this, value));
     }
 
     @Override
     public String addLike() {
-        likes++;
+        propagateLikes(1);
         return UserConstants.LIKE_SUCCESS;
     }
 
     @Override
     public String removeLike() {
-        likes--;
+        propagateLikes(-1);
         return UserConstants.DISLIKE_SUCCESS;
     }
 
+    /**
+     * Updates the likes, the song ranking and the likes of the parent album
+     *
+     * @param delta the change in likes
+     */
+    private void propagateLikes(final int delta) {
+        session.getEffects().apply(() -> {
+            if (detached != null) {
+                detachedLikes += delta;
+            } else {
+                catalog.addLikes(id, delta);
+            }
+            session.getLibrary().updateSongLikes(this);
+            if (parentAlbum != null) {
+                parentAlbum.addLikes(delta);
+            }
+        });
+    }
+
     @Override
     public String getFileOwner(final AudioFileState currentState) {
         if (currentState.isOver()) {
@@ -78,27 +150,46 @@ public final class Song implements AudioFile {
         currentState.setState(
                 0,
                 0,
-                songInput.getDuration(),
+                getDuration(),
                 false
         );
 
-        return songInput.getName();
+        return getName();
+    }
+
+    /**
+     * The album is matched by name, so it is only resolved again after the albums change
+     *
+     * @return The album the song is tied to or null
+     */
+    public Album getTiedAlbum() {
+        Library library = session.getLibrary();
+        if (albumVersion != library.getAlbumsVersion()) {
+            album = library.getAlbumByName(getAlbum());
+            albumVersion = library.getAlbumsVersion();
+        }
+
+        return album;
     }
 
     @Override
     public void addTie() {
-        Album album = Library.getInstance().getAlbumByName(songInput.getAlbum());
-        if (album != null) {
-            album.addTie();
-        }
+        session.getEffects().apply(() -> {
+            Album tiedAlbum = getTiedAlbum();
+            if (tiedAlbum != null) {
+                tiedAlbum.addTie();
+            }
+        });
     }
 
     @Override
     public void removeTie() {
-        Album album = Library.getInstance().getAlbumByName(songInput.getAlbum());
-        if (album != null) {
-            album.removeTie();
-        }
+        session.getEffects().apply(() -> {
+            Album tiedAlbum = getTiedAlbum();
+            if (tiedAlbum != null) {
+                tiedAlbum.removeTie();
+            }
+        });
     }
 
     @Override
@@ -106,7 +197,7 @@ public final class Song implements AudioFile {
         AudioFileState state = new AudioFileState();
 
         MediaPlayer.setDefaultState(state);
-        state.setLastDuration(songInput.getDuration());
+        state.setLastDuration(getDuration());
 
         return state;
     }
@@ -115,7 +206,7 @@ public final class Song implements AudioFile {
     public void simulateTime(final AudioFileState currentState, final int elapsedTime,
                              final User user) {
         int timePosition = currentState.getTimePosition() + elapsedTime;
-        if (timePosition < songInput.getDuration()) {
+        if (timePosition < getDuration()) {
             currentState.setTimePosition(timePosition);
             return;
         }
@@ -125,7 +216,7 @@ public final class Song implements AudioFile {
             return;
         }
 
-        currentState.setTimePosition(timePosition % songInput.getDuration());
+        currentState.setTimePosition(timePosition % getDuration());
 
         if (currentState.getRepeatMode() == MediaPlayerConstants.REPEAT_ALL_ONCE) {
             currentState.setRepeatMode(MediaPlayerConstants.REPEAT_NONE);
@@ -137,7 +228,7 @@ public final class Song implements AudioFile {
 
     @Override
     public String getName() {
-        return songInput.getName();
+        return (detached != null) ? detached.getName() : catalog.nameOf(id);
     }
 
     @Override
@@ -149,65 +240,55 @@ public final class Song implements AudioFile {
      * @return The album the song is a part of
      */
     public String getAlbum() {
-        return songInput.getAlbum();
+        return (detached != null) ? detached.getAlbum() : catalog.albumOf(id);
     }
 
     /**
      * @return The artist who sings the song
      */
     public String getArtist() {
-        return songInput.getArtist();
+        return (detached != null) ? detached.getArtist() : catalog.artistOf(id);
     }
 
     /**
      * @return The genre of the song
      */
     public String getGenre() {
-        return songInput.getGenre();
+        return (detached != null) ? detached.getGenre() : catalog.genreOf(id);
     }
 
     /**
      * @return The lyrics associated with the song
      */
     public String getLyrics() {
-        return songInput.getLyrics();
+        return (detached != null) ? detached.getLyrics() : catalog.lyricsOf(id);
     }
 
     /**
      * @return The duration of the song
      */
     public int getDuration() {
-        return songInput.getDuration();
+        return (detached != null) ? detached.getDuration() : catalog.durationOf(id);
     }
 
     /**
      * @return The release year of the song
      */
     public int getReleaseYear() {
-        return songInput.getReleaseYear();
+        return (detached != null) ? detached.getReleaseYear() : catalog.yearOf(id);
     }
 
     /**
      * @return The tags associated with the song
      */
-    public ArrayList<String> getTags() {
-        return songInput.getTags();
+    public List<String> getTags() {
+        return (detached != null) ? detached.getTags() : catalog.tagsOf(id);
     }
 
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (object == null || getClass() != object.getClass()) {
-            return false;
-        }
-        Song song = (Song) object;
-        return songInput.equals(song.songInput);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(songInput);
+    /**
+     * @return The number of likes
+     */
+    public int getLikes() {
+        return (detached != null) ? detachedLikes : catalog.likesOf(id);
     }
 }
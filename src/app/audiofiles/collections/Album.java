@@ -1,25 +1,76 @@
 package app.audiofiles.collections;
 
+import databases.EngineSession;
 import databases.UserDatabase;
 import app.users.creators.Artist;
+import app.audiofiles.Song;
 import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serial;
 
 /**
  * Album class. Extension to Playlist. Counts ties for future deletions.
  */
 @Getter
 public final class Album extends Playlist {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final String description;
     private final int year;
     private int ties;
 
+    /* Total song likes and the artist whose likes include them */
+    private int likes;
+    @Setter
+    private Artist releasingArtist;
+
+    /* Resolved owner and the user database version it was resolved for */
+    private Artist artist;
+    private long artistVersion = -1;
+
     public Album(final String name, final String owner,
-                 final String description, final int releaseYear) {
-        super(name, owner, false);
+                 final String description, final int releaseYear,
+                 final EngineSession session) {
+        super(name, owner, false, session);
         this.description = description;
         this.year = releaseYear;
     }
 
+    /**
+     * Album songs are only added on creation
+     *
+     * @param song the song to be added
+     */
+    @Override
+    public void addSong(final Song song) {
+        super.addSong(song);
+        song.setParentAlbum(this);
+        likes += song.getLikes();
+    }
+
+    /**
+     * @return The total amount of likes the songs have accumulated, kept up to date
+     */
+    @Override
+    public int getLikes() {
+        return likes;
+    }
+
+    /**
+     * Updates the album ranking and the likes of the releasing artist
+     *
+     * @param delta the change in likes
+     */
+    public void addLikes(final int delta) {
+        likes += delta;
+        getSession().getLibrary().updateAlbumLikes(this);
+        if (releasingArtist != null) {
+            releasingArtist.addLikes(delta);
+        }
+    }
+
     /**
      * Note that only the currently playing song will be added
      */
@@ -28,21 +79,48 @@ public final class Album extends Playlist {
         return true;
     }
 
+    /**
+     * @return The owner, resolved again only after the users change
+     */
+    private Artist getTiedArtist() {
+        UserDatabase userDatabase = getSession().getUserDatabase();
+        if (artistVersion != userDatabase.getVersion()) {
+            artist = userDatabase.getArtistByName(getOwner());
+            artistVersion = userDatabase.getVersion();
+        }
+
+        return artist;
+    }
+
     @Override
     public void addTie() {
-        Artist artist = UserDatabase.getInstance().getArtistByName(getOwner());
-        if (artist != null) {
-            artist.addTie();
-            ties++;
-        }
+        addTies(1);
     }
 
     @Override
     public void removeTie() {
-        Artist artist = UserDatabase.getInstance().getArtistByName(getOwner());
-        if (artist != null) {
-            artist.removeTie();
-            ties = Math.max(0, ties - 1);
-        }
+        removeTies(1);
+    }
+
+    @Override
+    public void addTies(final int count) {
+        getSession().getEffects().apply(() -> {
+            Artist tiedArtist = getTiedArtist();
+            if (tiedArtist != null) {
+                tiedArtist.addTies(count);
+                ties += count;
+            }
+        });
+    }
+
+    @Override
+    public void removeTies(final int count) {
+        getSession().getEffects().apply(() -> {
+            Artist tiedArtist = getTiedArtist();
+            if (tiedArtist != null) {
+                tiedArtist.removeTies(count);
+                ties = Math.max(0, ties - count);
+            }
+        });
     }
 }
@@ -0,0 +1,102 @@
+package app.audiofiles.collections;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Prefix sums over the durations of the items of a collection, in play order.
+ * <p>
+ * Used for advancing time through a collection with a binary search,
+ * instead of walking it item by item.
+ */
+public final class DurationSums implements Serializable {
+    private static final int INITIAL_CAPACITY = 8;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* sums[k] is the total duration of the first k items */
+    private long[] sums = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param duration the duration of the item added at the end
+     */
+    public void add(final int duration) {
+        if (size + 1 == sums.length) {
+            sums = Arrays.copyOf(sums, 2 * sums.length);
+        }
+
+        sums[size + 1] = sums[size] + duration;
+        size++;
+    }
+
+    /**
+     * @param index the index of the item to be removed
+     */
+    public void remove(final int index) {
+        long duration = sums[index + 1] - sums[index];
+        for (int k = index + 1; k < size; k++) {
+            sums[k] = sums[k + 1] - duration;
+        }
+        size--;
+    }
+
+    /**
+     * Removes all items
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return The number of items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The total duration of all items
+     */
+    public long total() {
+        return sums[size];
+    }
+
+    /**
+     * @param index the item index
+     * @return The time at which the item starts
+     */
+    public long startOf(final int index) {
+        return sums[index];
+    }
+
+    /**
+     * @param index the item index
+     * @return The time at which the item ends
+     */
+    public long endOf(final int index) {
+        return sums[index + 1];
+    }
+
+    /**
+     * @param offset the time since the start of the collection
+     * @return The index of the item playing at the given time or size if the time is
+     * past the end of the collection
+     */
+    public int indexAt(final long offset) {
+        /* First item ending after the offset */
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sums[middle + 1] > offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return low;
+    }
+}
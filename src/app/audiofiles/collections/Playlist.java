@@ -1,9 +1,11 @@
 package app.audiofiles.collections;
 
+import databases.EngineSession;
 import databases.UserDatabase;
 import app.mediaplayer.MediaPlayer;
 import app.users.normal.User;
 import app.utils.audiostate.PlaylistState;
+import app.utils.audiostate.ShuffleOrder;
 import lombok.Getter;
 import app.audiofiles.AudioFile;
 import app.audiofiles.Song;
@@ -11,18 +13,23 @@ import app.utils.audiostate.AudioFileState;
 import app.utils.constants.player.MediaPlayerConstants;
 import app.utils.constants.audio.PlaylistConstants;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * Playlist class.
  */
 @Getter
-public class Playlist implements AudioFile {
+public class Playlist implements AudioFile, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private final String owner;
 
@@ -31,27 +38,70 @@ public class Playlist implements AudioFile {
 
     private int followers;
 
-    public Playlist(final String name, final String owner, final boolean isPrivate) {
+    /* Duration prefix sums in list order, kept in sync with songs */
+    private final DurationSums durations = new DurationSums();
+    /* Incremented on every change of the song list */
+    private int version;
+
+    /* Resolved owner and the user database version it was resolved for */
+    private User ownerUser;
+    private long ownerVersion = -1;
+
+    /* The session the playlist belongs to */
+    private final EngineSession session;
+
+    public Playlist(final String name, final String owner, final boolean isPrivate,
+                    final EngineSession session) {
         this.name = name;
         this.isPrivate = isPrivate;
         this.owner = owner;
+        this.session = session;
+    }
+
+    /**
+     * @return The owner, resolved again only after the users change
+     */
+    private User getTiedOwner() {
+        UserDatabase userDatabase = session.getUserDatabase();
+        if (ownerVersion != userDatabase.getVersion()) {
+            ownerUser = userDatabase.getUserByName(owner);
+            ownerVersion = userDatabase.getVersion();
+        }
+
+        return ownerUser;
     }
 
     /**
-     * The standard playlist addition of ties goes through all songs
+     * @return The number of songs tied to each album
+     */
+    private Map<Album, Integer> countAlbumTies() {
+        Map<Album, Integer> albumTies = new IdentityHashMap<>();
+        for (Song song : songs) {
+            Album album = song.getTiedAlbum();
+            if (album != null) {
+                albumTies.merge(album, 1, Integer::sum);
+            }
+        }
+
+        return albumTies;
+    }
+
+    /**
+     * The standard playlist addition of ties goes through all songs.
+     * Songs of the same album are tied in a single batch.
      * <p>
      * Consider overriding if this is not necessary
      */
     @Override
     public void addTie() {
-        User user = UserDatabase.getInstance().getUserByName(owner);
-        if (user != null) {
-            user.addTie();
-        }
+        session.getEffects().apply(() -> {
+            User user = getTiedOwner();
+            if (user != null) {
+                user.addTie();
+            }
 
-        for (Song song : songs) {
-            song.addTie();
-        }
+            countAlbumTies().forEach(Album::addTies);
+        });
     }
 
     /**
@@ -59,14 +109,14 @@ public class Playlist implements AudioFile {
      */
     @Override
     public void removeTie() {
-        User user = UserDatabase.getInstance().getUserByName(owner);
-        if (user != null) {
-            user.removeTie();
-        }
+        session.getEffects().apply(() -> {
+            User user = getTiedOwner();
+            if (user != null) {
+                user.removeTie();
+            }
 
-        for (Song song : songs) {
-            song.removeTie();
-        }
+            countAlbumTies().forEach(Album::removeTies);
+        });
     }
 
     @Override
@@ -77,32 +127,38 @@ public class Playlist implements AudioFile {
 
         PlaylistState playlistState = (PlaylistState) currentState;
         int index = (playlistState.isShuffled())
-                ? playlistState.getShuffleIndexes()
-                .indexOf(playlistState.getLastIndex())
+                ? playlistState.getShuffleOrder().positionOf(playlistState.getLastIndex())
                 : playlistState.getLastIndex();
 
-        return songAt(index, playlistState.getShuffleIndexes()).getArtist();
+        return songAt(index, playlistState.getShuffleOrder()).getArtist();
     }
 
+    /**
+     * Same permutation as Collections.shuffle on the list of indexes, without boxing
+     */
     @Override
-    public final List<Integer> shuffleFile(final Integer seed) {
+    public final ShuffleOrder shuffleFile(final Integer seed) {
         if (seed == null) {
             return null;
         }
 
-        ArrayList<Integer> shuffleIndexes =
-                IntStream.range(0, songs.size()).boxed()
-                        .collect(Collectors.toCollection(ArrayList::new));
-        Collections.shuffle(shuffleIndexes, new Random(seed));
+        int[] shuffleIndexes = IntStream.range(0, songs.size()).toArray();
+        Random random = new Random(seed);
+        for (int i = shuffleIndexes.length; i > 1; i--) {
+            int j = random.nextInt(i);
+            int swap = shuffleIndexes[i - 1];
+            shuffleIndexes[i - 1] = shuffleIndexes[j];
+            shuffleIndexes[j] = swap;
+        }
 
-        return shuffleIndexes;
+        return new ShuffleOrder(shuffleIndexes);
     }
 
     @Override
     public final AudioFile getCurrentFile(final AudioFileState currentState) {
         PlaylistState playlistState = (PlaylistState) currentState;
         if (playlistState.isShuffled()) {
-            return songAt(playlistState.getLastIndex(), playlistState.getShuffleIndexes());
+            return songAt(playlistState.getLastIndex(), playlistState.getShuffleOrder());
         }
         return songs.get(currentState.getLastIndex());
     }
@@ -129,21 +185,21 @@ public class Playlist implements AudioFile {
     }
 
     /**
-     * @param index          the normal index
-     * @param shuffleIndexes the shuffle index array to use
+     * @param index        the normal index
+     * @param shuffleOrder the shuffle order to use
      * @return The song at the given index, taking into account the shuffle status
      */
-    public Song songAt(final int index, final List<Integer> shuffleIndexes) {
-        return songs.get((shuffleIndexes != null) ? shuffleIndexes.get(index) : index);
+    public Song songAt(final int index, final ShuffleOrder shuffleOrder) {
+        return songs.get((shuffleOrder != null) ? shuffleOrder.indexAt(index) : index);
     }
 
     @Override
     public final String getPrevious(final AudioFileState currentState, final User user) {
         PlaylistState playlistState = (PlaylistState) currentState;
-        List<Integer> shuffleIndexes = playlistState.getShuffleIndexes();
+        ShuffleOrder shuffleOrder = playlistState.getShuffleOrder();
 
         int index = (playlistState.isShuffled())
-                ? shuffleIndexes.indexOf(playlistState.getLastIndex())
+                ? shuffleOrder.positionOf(playlistState.getLastIndex())
                 : playlistState.getLastIndex();
 
         if (playlistState.getTimePosition() > 0 || index == 0) {
@@ -152,62 +208,106 @@ public class Playlist implements AudioFile {
         }
 
         playlistState.setLastIndex((playlistState.isShuffled())
-                ? shuffleIndexes.get(index - 1) : index - 1);
+                ? shuffleOrder.indexAt(index - 1) : index - 1);
         playlistState.setLastDuration(songs.get(playlistState.getLastIndex()).getDuration());
 
         index = (playlistState.isShuffled())
-                ? shuffleIndexes.indexOf(playlistState.getLastIndex())
+                ? shuffleOrder.positionOf(playlistState.getLastIndex())
                 : playlistState.getLastIndex();
-        user.listenTo(songAt(index, playlistState.getShuffleIndexes()), 1);
+        user.listenTo(songAt(index, shuffleOrder), 1);
 
         return songs.get(playlistState.getLastIndex()).getName();
     }
 
+    /**
+     * @param playlistState the playlist state
+     * @return The duration prefix sums, in the play order of the given state
+     */
+    private DurationSums playOrderDurations(final PlaylistState playlistState) {
+        if (!playlistState.isShuffled()) {
+            return durations;
+        }
+
+        if (playlistState.getShuffledDurations() == null
+                || playlistState.getShuffledVersion() != version) {
+            DurationSums sums = new DurationSums();
+            for (int i = 0; i < songs.size(); i++) {
+                sums.add(songAt(i, playlistState.getShuffleOrder()).getDuration());
+            }
+
+            playlistState.setShuffledDurations(sums);
+            playlistState.setShuffledVersion(version);
+        }
+
+        return playlistState.getShuffledDurations();
+    }
+
+    /**
+     * Finds the new position with a binary search over the duration prefix sums.
+     * Listens are attributed in bulk: every song gets one listen per lap it was played in.
+     */
     @Override
     public final void simulateTime(final AudioFileState currentState, final int elapsedTime,
                                    final User user) {
         PlaylistState playlistState = (PlaylistState) currentState;
         int timePosition = playlistState.getTimePosition() + elapsedTime;
         boolean shuffled = playlistState.isShuffled();
-        List<Integer> shuffleIndexes = (shuffled) ? playlistState.getShuffleIndexes() : null;
+        ShuffleOrder shuffleOrder = (shuffled) ? playlistState.getShuffleOrder() : null;
 
         int i = (shuffled)
-                ? shuffleIndexes.indexOf(playlistState.getLastIndex())
+                ? shuffleOrder.positionOf(playlistState.getLastIndex())
                 : playlistState.getLastIndex();
-        Song song = songAt(i, shuffleIndexes);
+        Song song = songAt(i, shuffleOrder);
 
         if (playlistState.getRepeatMode() == MediaPlayerConstants.REPEAT_CURRENT_INFINITE) {
             playlistState.setTimePosition(timePosition % song.getDuration());
             return;
         }
 
-        if (timePosition != 0 || user.getMediaPlayer().getAdTime() == 0) {
+        /* Songs starting at the beginning of an ad are not counted yet */
+        boolean adRunning = user.getMediaPlayer().getAdTime() != 0;
+        if (timePosition != 0 || !adRunning) {
             user.listenTo(song, -1);
         }
 
-        /* songs.size == shuffleIndexes.size so no special cases */
-        while (i < songs.size()) {
-            song = songAt(i, shuffleIndexes);
+        DurationSums sums = playOrderDurations(playlistState);
+        long offset = sums.startOf(i) + timePosition;
+        long laps = 0;
+
+        if (playlistState.getRepeatMode() == MediaPlayerConstants.REPEAT_ALL_ONCE) {
+            laps = offset / sums.total();
+            offset %= sums.total();
+        } else if (offset >= sums.total()) {
+            /* Repeat none and played until the end */
+            for (int k = i; k < songs.size(); k++) {
+                user.listenTo(songAt(k, shuffleOrder), 1);
+            }
 
-            if (timePosition < song.getDuration()) {
-                if (timePosition != 0 || user.getMediaPlayer().getAdTime() == 0) {
-                    user.listenTo(song, 1);
-                }
+            playlistState.clear();
+            return;
+        }
 
-                playlistState.setLastIndex((shuffled) ? shuffleIndexes.get(i) : i);
-                playlistState.setTimePosition(timePosition);
-                playlistState.setLastDuration(song.getDuration());
-                return;
+        int current = sums.indexAt(offset);
+
+        /* Songs played in the first (partial), the full and the last (partial) laps */
+        int first = (laps == 0) ? i : 0;
+        int last = (laps == 0) ? current : songs.size();
+        for (int k = first; k < last; k++) {
+            long count = laps + ((k < current) ? 1 : 0) - ((k < i) ? 1 : 0);
+            if (count != 0) {
+                user.listenTo(songAt(k, shuffleOrder), (int) count);
             }
+        }
 
+        song = songAt(current, shuffleOrder);
+        timePosition = (int) (offset - sums.startOf(current));
+        if (timePosition != 0 || !adRunning) {
             user.listenTo(song, 1);
-            timePosition -= song.getDuration();
-            i = (playlistState.getRepeatMode() == MediaPlayerConstants.REPEAT_ALL_ONCE)
-                    ? (i + 1) % songs.size() : i + 1;
         }
 
-        /* Repeat none and played until the end */
-        playlistState.clear();
+        playlistState.setLastIndex((shuffled) ? shuffleOrder.indexAt(current) : current);
+        playlistState.setTimePosition(timePosition);
+        playlistState.setLastDuration(song.getDuration());
     }
 
     @Override
@@ -225,24 +325,46 @@ public class Playlist implements AudioFile {
      */
     public void addSong(final Song song) {
         songs.add(song);
+        durations.add(song.getDuration());
+        version++;
+    }
+
+    /**
+     * @param newSongs the songs to be added, in order
+     */
+    public void addSongs(final List<Song> newSongs) {
+        newSongs.forEach(this::addSong);
     }
 
     /**
      * @param song the song to be removed
      */
     public void removeSong(final Song song) {
-        songs.remove(song);
+        int index = songs.indexOf(song);
+        if (index < 0) {
+            return;
+        }
+
+        songs.remove(index);
+        durations.remove(index);
+        version++;
     }
 
     @Override
     public final String addFollow() {
-        followers++;
+        session.getEffects().apply(() -> {
+            followers++;
+            session.getLibrary().updatePlaylistFollowers(this);
+        });
         return PlaylistConstants.FOLLOW_SUCCESS;
     }
 
     @Override
     public final String removeFollow() {
-        followers--;
+        session.getEffects().apply(() -> {
+            followers--;
+            session.getLibrary().updatePlaylistFollowers(this);
+        });
         return PlaylistConstants.UNFOLLOW_SUCCESS;
     }
 
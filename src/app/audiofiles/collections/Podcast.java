@@ -1,6 +1,7 @@
 package app.audiofiles.collections;
 
 import app.users.normal.User;
+import databases.EngineSession;
 import databases.UserDatabase;
 import app.mediaplayer.MediaPlayer;
 import app.users.creators.Host;
@@ -12,20 +13,79 @@ import app.utils.audiostate.AudioFileState;
 import app.utils.constants.player.MediaPlayerConstants;
 import app.utils.constants.audio.PodcastConstants;
 import lombok.Getter;
+import lombok.Setter;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * Podcast class. Wrapper for PodcastInput.
  */
-public final class Podcast implements AudioFile {
+public final class Podcast implements AudioFile, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final PodcastInput podcastInput;
     @Getter
     private int ties;
 
-    public Podcast(final PodcastInput podcastInput) {
+    /* The host the podcast was added by, null for library podcasts */
+    @Getter
+    @Setter
+    private Host host;
+
+    /* Host resolved by owner name and the user database version it was resolved for */
+    private Host tiedHost;
+    private long tiedHostVersion = -1;
+
+    /* Episode duration prefix sums. Episodes never change after creation */
+    private final DurationSums durations = new DurationSums();
+    /* Dense ids of the episodes, in episode order, given when the podcast is added to the
+       library. The input itself may be shared */
+    private final int[] episodeIds;
+    /* If the podcast was removed from the library, its ids only resolve while listened */
+    @Getter
+    private boolean removed;
+
+    /* The session the podcast belongs to */
+    private final EngineSession session;
+
+    public Podcast(final PodcastInput podcastInput, final EngineSession session) {
         this.podcastInput = podcastInput;
+        this.session = session;
+
+        episodeIds = new int[podcastInput.getEpisodes().size()];
+        for (int i = 0; i < episodeIds.length; i++) {
+            EpisodeInput episode = podcastInput.getEpisodes().get(i);
+            durations.add(episode.getDuration());
+        }
+    }
+
+    /**
+     * Gives ids to the episodes. Called when the podcast is added to the library
+     */
+    public void register() {
+        for (int i = 0; i < episodeIds.length; i++) {
+            episodeIds[i] = session.getLibrary().registerEpisode(
+                    podcastInput.getEpisodes().get(i));
+        }
+    }
+
+    /**
+     * Marks the podcast as removed from the library
+     */
+    public void unregister() {
+        removed = true;
+    }
+
+    /**
+     * @param index the episode index
+     * @return The id of the episode
+     */
+    public int getEpisodeId(final int index) {
+        return episodeIds[index];
     }
 
     @Override
@@ -71,22 +131,42 @@ public final class Podcast implements AudioFile {
         return PodcastConstants.REWIND_MESSAGE;
     }
 
+    /**
+     * Library podcasts have no host reference, but may still be owned by a host
+     * created later with the same name
+     *
+     * @return The owner, resolved again only after the users change
+     */
+    private Host getTiedHost() {
+        UserDatabase userDatabase = session.getUserDatabase();
+        if (tiedHostVersion != userDatabase.getVersion()) {
+            tiedHost = userDatabase.getHostByName(podcastInput.getOwner());
+            tiedHostVersion = userDatabase.getVersion();
+        }
+
+        return tiedHost;
+    }
+
     @Override
     public void addTie() {
-        Host host = UserDatabase.getInstance().getHostByName(podcastInput.getOwner());
-        if (host != null) {
-            host.addTie();
-            ties++;
-        }
+        session.getEffects().apply(() -> {
+            Host owner = getTiedHost();
+            if (owner != null) {
+                owner.addTie();
+                ties++;
+            }
+        });
     }
 
     @Override
     public void removeTie() {
-        Host host = UserDatabase.getInstance().getHostByName(podcastInput.getOwner());
-        if (host != null) {
-            host.removeTie();
-            ties = Math.max(0, ties - 1);
-        }
+        session.getEffects().apply(() -> {
+            Host owner = getTiedHost();
+            if (owner != null) {
+                owner.removeTie();
+                ties = Math.max(0, ties - 1);
+            }
+        });
     }
 
     @Override
@@ -106,27 +186,47 @@ public final class Podcast implements AudioFile {
         ).getName();
     }
 
+    /**
+     * Finds the new position with a binary search over the duration prefix sums.
+     * Listens are attributed in bulk: every episode gets one listen per lap it was played in.
+     */
     @Override
     public void simulateTime(final AudioFileState currentState, final int elapsedTime,
                              final User user) {
         int timePosition = currentState.getTimePosition() + elapsedTime;
         List<EpisodeInput> episodes = podcastInput.getEpisodes();
+        int start = currentState.getLastIndex();
 
-        user.listenTo(this, currentState.getLastIndex(), -1);
+        user.listenTo(this, start, -1);
 
-        for (int i = currentState.getLastIndex(); i < episodes.size();) {
-            user.listenTo(this, i, 1);
+        long offset = durations.startOf(start) + timePosition;
+        if (currentState.getRepeatMode() == MediaPlayerConstants.REPEAT_CURRENT_INFINITE) {
+            long laps = offset / durations.total();
+            offset %= durations.total();
+            int current = durations.indexAt(offset);
 
-            if (timePosition < episodes.get(i).getDuration()) {
-                currentState.setState(i, timePosition, episodes.get(i).getDuration(), false);
-                return;
+            for (int i = 0; i < episodes.size(); i++) {
+                long count = laps + ((i <= current) ? 1 : 0) - ((i < start) ? 1 : 0);
+                if (count != 0) {
+                    user.listenTo(this, i, (int) count);
+                }
             }
 
-            timePosition -= episodes.get(i).getDuration();
-            i = (currentState.getRepeatMode() == MediaPlayerConstants.REPEAT_CURRENT_INFINITE)
-                    ? (i + 1) % episodes.size() : i + 1;
+            setPosition(currentState, current, offset);
+            return;
         }
 
+        int current = durations.indexAt(offset);
+        for (int i = start; i <= current && i < episodes.size(); i++) {
+            user.listenTo(this, i, 1);
+        }
+
+        if (current < episodes.size()) {
+            setPosition(currentState, current, offset);
+            return;
+        }
+        timePosition = (int) (offset - durations.total());
+
         /* Reset the state for repeat once */
         if (currentState.getRepeatMode() == MediaPlayerConstants.REPEAT_ALL_ONCE) {
             currentState.setRepeatMode(MediaPlayerConstants.REPEAT_NONE);
@@ -145,6 +245,23 @@ public final class Podcast implements AudioFile {
         );
     }
 
+    /**
+     * Moves the state to the given time
+     *
+     * @param currentState the state
+     * @param index        the index of the episode playing at that time
+     * @param offset       the time since the start of the podcast
+     */
+    private void setPosition(final AudioFileState currentState, final int index,
+                             final long offset) {
+        currentState.setState(
+                index,
+                (int) (offset - durations.startOf(index)),
+                podcastInput.getEpisodes().get(index).getDuration(),
+                false
+        );
+    }
+
     @Override
     public boolean isEmpty() {
         return podcastInput.getEpisodes().isEmpty();
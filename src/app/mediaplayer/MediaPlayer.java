@@ -6,8 +6,9 @@ import app.audiofiles.collections.Podcast;
 import app.users.creators.ContentCreator;
 import app.utils.audiostate.PlaylistState;
 import app.utils.audiostate.PodcastState;
-import databases.UserDatabase;
+import app.utils.audiostate.ShuffleOrder;
 import lombok.Getter;
+import lombok.Setter;
 import app.audiofiles.AudioFile;
 import fileio.commands.Command;
 import app.users.normal.User;
@@ -17,6 +18,8 @@ import app.utils.constants.audio.PlaylistConstants;
 import app.utils.constants.audio.PodcastConstants;
 import app.utils.constants.users.UserConstants;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,7 +28,10 @@ import java.util.List;
  * Timestamps are used in most functions to update the player status
  */
 @Getter
-public final class MediaPlayer {
+public final class MediaPlayer implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final User playerOwner;
 
     /* Player data */
@@ -41,6 +47,10 @@ public final class MediaPlayer {
     private int adTime;
     private double adPrice;
 
+    /* The clock driving the player, notified whenever its state may change */
+    @Setter
+    private PlayerClock clock;
+
     public MediaPlayer(final User user) {
         fileState.setRepeatModeAsString(MediaPlayerConstants.NO_REPEAT_MESSAGE);
         fileState.setOver(true);
@@ -52,7 +62,8 @@ public final class MediaPlayer {
      * @return The currently playing file's creator
      */
     public ContentCreator getFileOwner() {
-        return UserDatabase.getInstance().getCreatorByName(audioFile.getFileOwner(fileState));
+        return playerOwner.getSession().getUserDatabase()
+                .getCreatorByName(audioFile.getFileOwner(fileState));
     }
 
     /**
@@ -144,6 +155,10 @@ public final class MediaPlayer {
      * @param timestamp current time
      */
     public void updateStatus(final int timestamp) {
+        if (clock != null) {
+            playerOwner.getSession().getEffects().apply(() -> clock.touch(this));
+        }
+
         int elapsedTime = timestamp - lastUpdateTime;
         if (elapsedTime == 0) {
             return;
@@ -171,6 +186,24 @@ public final class MediaPlayer {
         }
     }
 
+    /**
+     * While an ad is running, every update may change the listened songs,
+     * so the player is always due.
+     *
+     * @return The first time the player state can change without a command
+     * or NO_EVENT if it can not change on its own
+     */
+    public int getNextEventTime() {
+        if (!isPlaying || isOffline || fileState.isOver()) {
+            return MediaPlayerConstants.NO_EVENT;
+        }
+        if (adPrice != 0 && adTime != MediaPlayerConstants.AD_TIME_START) {
+            return lastUpdateTime;
+        }
+
+        return lastUpdateTime + fileState.getTimeRemaining();
+    }
+
     /**
      * Plays a given ad
      *
@@ -217,13 +250,13 @@ public final class MediaPlayer {
             return UserConstants.SHUFFLE_NO_SOURCE;
         }
 
-        List<Integer> indexes = audioFile.shuffleFile(seed);
-        if ((indexes == null && seed != null) || (seed == null && !fileState.isShuffled())) {
+        ShuffleOrder order = audioFile.shuffleFile(seed);
+        if ((order == null && seed != null) || (seed == null && !fileState.isShuffled())) {
             return UserConstants.SHUFFLE_NOT_VALID;
         }
 
         PlaylistState playlistState = (PlaylistState) fileState;
-        playlistState.setShuffleIndexes(indexes);
+        playlistState.setShuffleOrder(order);
         playlistState.setShuffled(!playlistState.isShuffled());
 
         return (playlistState.isShuffled())
@@ -0,0 +1,171 @@
+package app.mediaplayer;
+
+import app.utils.constants.player.MediaPlayerConstants;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Global simulation clock of all registered media players.
+ * <p>
+ * Each player is scheduled at its next event time (the first time its state can change
+ * without a command). Players touched by commands are rescheduled lazily, on the next
+ * catch-up. A catch-up only updates the players with events up to the given time,
+ * so idle and paused players cost nothing.
+ */
+public final class PlayerClock implements Serializable {
+    /* Stale events are dropped when the queue outgrows the schedule by this factor */
+    private static final int COMPACT_FACTOR = 4;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* Time of the last catch-up */
+    @Getter
+    private int currentTime;
+
+    /* Registration order, also the order in which due players are updated */
+    private long nextSequence;
+    private final Map<MediaPlayer, Long> sequences = new HashMap<>();
+
+    /* Current event time of each scheduled player. Queued events not matching it are stale */
+    private final Map<MediaPlayer, Integer> scheduled = new HashMap<>();
+    /* Rebuilt from the schedule when restored */
+    private transient PriorityQueue<Event> events = createQueue();
+
+    private final Set<MediaPlayer> touched = new HashSet<>();
+
+    /**
+     * A scheduled player event
+     *
+     * @param time   the event time
+     * @param player the player
+     */
+    private record Event(int time, MediaPlayer player) {
+    }
+
+    /**
+     * @return An empty event queue, by time
+     */
+    private static PriorityQueue<Event> createQueue() {
+        return new PriorityQueue<>(Comparator.comparingInt(Event::time));
+    }
+
+    /**
+     * Restores the event queue from the schedule
+     *
+     * @param in the snapshot stream
+     * @throws IOException            in case of exceptions to reading
+     * @throws ClassNotFoundException if a class of the snapshot is missing
+     */
+    @Serial
+    private void readObject(final ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        events = createQueue();
+        scheduled.forEach((player, time) -> events.add(new Event(time, player)));
+    }
+
+    /**
+     * Clears the clock
+     */
+    public void clear() {
+        currentTime = 0;
+        nextSequence = 0;
+        sequences.keySet().forEach(player -> player.setClock(null));
+        sequences.clear();
+        scheduled.clear();
+        events.clear();
+        touched.clear();
+    }
+
+    /**
+     * @param player the player to be driven by this clock
+     */
+    public void register(final MediaPlayer player) {
+        sequences.put(player, nextSequence++);
+        player.setClock(this);
+        touched.add(player);
+    }
+
+    /**
+     * @param player the player to be removed from the clock
+     */
+    public void unregister(final MediaPlayer player) {
+        if (sequences.remove(player) == null) {
+            return;
+        }
+
+        player.setClock(null);
+        scheduled.remove(player);
+        touched.remove(player);
+    }
+
+    /**
+     * Marks a player whose state may have changed, so that it is rescheduled
+     *
+     * @param player the player
+     */
+    public void touch(final MediaPlayer player) {
+        touched.add(player);
+    }
+
+    /**
+     * Updates all players with events up to the given time, in registration order
+     *
+     * @param timestamp the timestamp
+     */
+    public void advanceTo(final int timestamp) {
+        currentTime = Math.max(currentTime, timestamp);
+
+        touched.forEach(this::schedule);
+        touched.clear();
+
+        List<MediaPlayer> due = new ArrayList<>();
+        while (!events.isEmpty() && events.peek().time() <= timestamp) {
+            Event event = events.poll();
+            Integer time = scheduled.get(event.player());
+
+            if (time != null && time == event.time()) {
+                scheduled.remove(event.player());
+                due.add(event.player());
+            }
+        }
+
+        due.sort(Comparator.comparing(sequences::get));
+        due.forEach(player -> player.updateStatus(timestamp));
+
+        if (events.size() > COMPACT_FACTOR * (scheduled.size() + 1)) {
+            events.clear();
+            scheduled.forEach((player, time) -> events.add(new Event(time, player)));
+        }
+    }
+
+    /**
+     * Computes the next event of a player and queues it
+     *
+     * @param player the player
+     */
+    private void schedule(final MediaPlayer player) {
+        int time = player.getNextEventTime();
+        if (time == MediaPlayerConstants.NO_EVENT) {
+            scheduled.remove(player);
+            return;
+        }
+
+        Integer previous = scheduled.put(player, time);
+        if (previous == null || previous != time) {
+            events.add(new Event(time, player));
+        }
+    }
+}
@@ -4,11 +4,17 @@ import app.utils.tie.TiedEntity;
 import lombok.Getter;
 import app.utils.page.PageInfo;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Generic page class
  */
 @Getter
-public abstract class Page implements TiedEntity {
+public abstract class Page implements TiedEntity, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final PageInfo pageInfo;
 
     protected Page(final PageInfo pageInfo) {
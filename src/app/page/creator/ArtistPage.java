@@ -7,10 +7,14 @@ import app.utils.page.PageInfo;
 import app.utils.page.data.Event;
 import app.utils.page.data.Merchandise;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public final class ArtistPage extends Page {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final List<Album> albums;
     private final List<Merchandise> merch = new ArrayList<>();
     private final List<Event> events = new ArrayList<>();
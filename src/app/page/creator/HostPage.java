@@ -7,10 +7,14 @@ import app.utils.page.PageInfo;
 import app.utils.page.data.Announcement;
 import fileio.input.EpisodeInput;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public final class HostPage extends Page {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final List<Podcast> podcasts;
     private final List<Announcement> announcements = new ArrayList<>();
 
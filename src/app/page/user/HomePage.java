@@ -5,6 +5,7 @@ import app.audiofiles.collections.Playlist;
 import app.utils.constants.searchbar.SearchBarConstants;
 import app.utils.page.PageInfo;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -13,6 +14,9 @@ import java.util.List;
  * Home page class
  */
 public final class HomePage extends LikedContentPage {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final List<Song> songRecommendations = new ArrayList<>();
     private final List<Playlist> playlistRecommendations = new ArrayList<>();
 
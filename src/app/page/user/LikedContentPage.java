@@ -5,9 +5,13 @@ import app.audiofiles.collections.Playlist;
 import app.page.Page;
 import app.utils.page.PageInfo;
 
+import java.io.Serial;
 import java.util.List;
 
 public class LikedContentPage extends Page {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     protected final List<Song> likedSongs;
     protected final List<Playlist> followedPlaylists;
 
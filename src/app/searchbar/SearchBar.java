@@ -14,13 +14,18 @@ import app.users.normal.User;
 import app.utils.constants.audio.PlaylistConstants;
 import app.utils.constants.searchbar.SearchBarConstants;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Searchbar class. Each user has an independent searchbar.
  */
-public final class SearchBar {
+public final class SearchBar implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private List<AudioFile> foundFiles;
     private AudioFile selectedFile;
     private List<ContentCreator> foundCreators;
@@ -9,26 +9,33 @@ import app.page.Page;
 import app.page.creator.ArtistPage;
 import app.utils.page.PageInfo;
 import databases.UserDatabase;
+import databases.EngineSession;
 import fileio.input.UserInput;
 import lombok.Getter;
 import visitor.UserVisitor;
 import visitor.VisitableUser;
 
+import java.io.Serial;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.LinkedHashMap;
 import java.util.Comparator;
 
 @Getter
 public final class Artist extends ContentCreator implements VisitableUser {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final ArtistPage artistPage;
     private final List<Album> albums = new ArrayList<>();
 
     private double merchRevenue;
 
-    public Artist(final UserInput userInput) {
-        super(userInput);
+    /* Total likes of the released albums */
+    private int likes;
+
+    public Artist(final UserInput userInput, final EngineSession session) {
+        super(userInput, session);
         artistPage = new ArtistPage(new PageInfo(this, PageInfo.PageType.ARTIST), albums);
     }
 
@@ -65,26 +72,18 @@ public final class Artist extends ContentCreator implements VisitableUser {
      * @return The top 5 fans by the listen count
      */
     public List<User> getTop5Fans(final UserDatabase userDatabase) {
-        Map<User, Integer> fans = new LinkedHashMap<>();
-
-        for (User user : userDatabase.getUsers()) {
-            user.getListenedSongs().forEach((key, value) -> {
-                if (key.getArtist().equals(getName())) {
-                    fans.merge(user, value, Integer::sum);
-                }
-            });
-        }
-
-        List<Map.Entry<User, Integer>> entries = new ArrayList<>(fans.entrySet());
-        entries.sort(Map.Entry.comparingByKey(Comparator.comparing(User::getName)));
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(
+                userDatabase.listensOf(getName()).getFans().getCounts().entrySet()
+        );
+        entries.sort(Map.Entry.comparingByKey());
         entries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
 
         entries = entries.subList(0, Math.min(entries.size(), SearchBarConstants.RESULTS_MAX_SIZE));
 
-        Map<User, Integer> topFans = new LinkedHashMap<>();
-        entries.forEach(entry -> topFans.put(entry.getKey(), entry.getValue()));
+        List<User> topFans = new ArrayList<>();
+        entries.forEach(entry -> topFans.add(userDatabase.getUserByName(entry.getKey())));
 
-        return new ArrayList<>(topFans.keySet());
+        return topFans;
     }
 
     /**
@@ -101,8 +100,10 @@ public final class Artist extends ContentCreator implements VisitableUser {
             return getName() + ArtistConstants.DUPLICATE_SONG;
         }
 
-        Library.getInstance().addAlbum(album);
+        getSession().getLibrary().addAlbum(album);
         albums.add(album);
+        album.setReleasingArtist(this);
+        addLikes(album.getLikes());
         notifyAll("Album");
 
         return getName() + ArtistConstants.ADD_SUCCESS;
@@ -124,13 +125,21 @@ public final class Artist extends ContentCreator implements VisitableUser {
             return getName() + ArtistConstants.DELETE_FAIL;
         }
 
-        Library.getInstance().removeAlbum(album);
+        getSession().getLibrary().removeAlbum(album);
         albums.remove(album);
+        album.setReleasingArtist(null);
+        addLikes(-album.getLikes());
         return getName() + ArtistConstants.DELETE_SUCCESS;
     }
 
-    public int getLikes() {
-        return albums.stream().mapToInt(Album::getLikes).sum();
+    /**
+     * Updates the artist ranking
+     *
+     * @param delta the change in album likes
+     */
+    public void addLikes(final int delta) {
+        likes += delta;
+        getSession().getUserDatabase().updateArtistLikes(this);
     }
 
     @Override
@@ -2,19 +2,25 @@ package app.users.creators;
 
 import app.page.Page;
 import app.users.tie.TiedUserEntity;
+import databases.EngineSession;
 import fileio.input.UserInput;
 import observer.Observable;
 import observer.Observer;
 
+import java.io.Serial;
+
 /**
  * Content creator base class
  */
 public abstract class ContentCreator extends TiedUserEntity {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /* Composition to solve multiple extension */
     private final Observable observableData = new Observable();
 
-    public ContentCreator(final UserInput userInput) {
-        super(userInput);
+    public ContentCreator(final UserInput userInput, final EngineSession session) {
+        super(userInput, session);
     }
 
     /**
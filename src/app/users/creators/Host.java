@@ -5,23 +5,33 @@ import databases.Library;
 import app.page.Page;
 import app.utils.page.PageInfo;
 import fileio.input.EpisodeInput;
+import databases.EngineSession;
 import fileio.input.UserInput;
 import app.audiofiles.collections.Podcast;
 import app.page.creator.HostPage;
+import app.users.normal.User;
+import app.users.creators.stats.HostListens;
 import lombok.Getter;
 import visitor.UserVisitor;
 import visitor.VisitableUser;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 @Getter
 public final class Host extends ContentCreator implements VisitableUser {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final HostPage hostPage;
     private final List<Podcast> podcasts = new ArrayList<>();
 
-    public Host(final UserInput userInput) {
-        super(userInput);
+    /* Listens of the hosted episodes, aggregated over all users */
+    private final HostListens listens = new HostListens();
+
+    public Host(final UserInput userInput, final EngineSession session) {
+        super(userInput, session);
         hostPage = new HostPage(new PageInfo(this, PageInfo.PageType.HOST), podcasts);
     }
 
@@ -30,8 +40,7 @@ public final class Host extends ContentCreator implements VisitableUser {
      * @return If the host hosts the given episode
      */
     public boolean hostsEpisode(final EpisodeInput episode) {
-        return podcasts.stream().filter(podcast -> podcast.getEpisodes().contains(episode))
-                .findAny().orElse(null) != null;
+        return getSession().getLibrary().getHostOf(episode) == this;
     }
 
     @Override
@@ -42,6 +51,7 @@ public final class Host extends ContentCreator implements VisitableUser {
     @Override
     public void untieFrom(final Library library) {
         library.removePodcasts(podcasts);
+        podcasts.forEach(podcast -> podcast.setHost(null));
     }
 
     /**
@@ -66,11 +76,33 @@ public final class Host extends ContentCreator implements VisitableUser {
             return getName() + HostConstants.DUPLICATE_EPISODE;
         }
 
-        Library.getInstance().addPodcast(podcast);
+        podcast.setHost(this);
+        getSession().getLibrary().addPodcast(podcast);
         podcasts.add(podcast);
         return getName() + HostConstants.ADD_SUCCESS;
     }
 
+    /**
+     * Attaches an existing library podcast, together with its past listens
+     *
+     * @param podcast the podcast
+     * @param users   all normal users
+     */
+    public void attachPodcast(final Podcast podcast, final List<User> users) {
+        podcast.setHost(this);
+        podcasts.add(podcast);
+
+        for (User user : users) {
+            for (int i = 0; i < podcast.getEpisodes().size(); i++) {
+                int id = podcast.getEpisodeId(i);
+                if (user.getListenedEpisodes().containsKey(id)) {
+                    listens.add(user, podcast.getEpisodes().get(i),
+                            user.getListenedEpisodes().get(id), true);
+                }
+            }
+        }
+    }
+
     /**
      * Removes a podcast
      *
@@ -87,8 +119,10 @@ public final class Host extends ContentCreator implements VisitableUser {
             return getName() + HostConstants.DELETE_FAIL;
         }
 
-        Library.getInstance().removePodcast(podcast);
+        getSession().getLibrary().removePodcast(podcast);
         podcasts.remove(podcast);
+        podcast.setHost(null);
+        listens.removePodcast(podcast);
         return getName() + HostConstants.DELETE_SUCCESS;
     }
 
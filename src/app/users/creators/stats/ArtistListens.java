@@ -0,0 +1,49 @@
+package app.users.creators.stats;
+
+import app.audiofiles.Song;
+import app.users.normal.User;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Listens of all songs with a given artist name, aggregated over all users.
+ * Updated whenever a user listens to one of the songs.
+ */
+@Getter
+public final class ArtistListens implements Serializable {
+    /* Listens of an artist nobody listened to. Shared, so only ever read */
+    public static final ArtistListens EMPTY = new ArtistListens();
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final ListenTally albums = new ListenTally();
+    private final ListenTally songs = new ListenTally();
+    private final ListenTally fans = new ListenTally();
+
+    /**
+     * @param user     the user
+     * @param song     the song
+     * @param count    the listen count
+     * @param newEntry if the user never listened to the song before
+     */
+    public void add(final User user, final Song song, final int count, final boolean newEntry) {
+        albums.add(song.getAlbum(), count, newEntry);
+        songs.add(song.getName(), count, newEntry);
+        fans.add(user.getName(), count, newEntry);
+    }
+
+    /**
+     * Drops all listens of a user to a song
+     *
+     * @param user  the user
+     * @param song  the song
+     * @param count the listen count of the user
+     */
+    public void remove(final User user, final Song song, final int count) {
+        albums.remove(song.getAlbum(), count);
+        songs.remove(song.getName(), count);
+        fans.remove(user.getName(), count);
+    }
+}
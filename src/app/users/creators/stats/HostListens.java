@@ -0,0 +1,82 @@
+package app.users.creators.stats;
+
+import app.audiofiles.collections.Podcast;
+import app.users.normal.User;
+import fileio.input.EpisodeInput;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listens of the episodes of a host, aggregated over all users.
+ * Updated whenever a user listens to one of the episodes.
+ */
+public final class HostListens implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Getter
+    private final ListenTally episodes = new ListenTally();
+    @Getter
+    private final ListenTally fans = new ListenTally();
+
+    /* Listen count of each user, by episode. Used for removals */
+    private final Map<EpisodeInput, Map<String, Integer>> listens = new HashMap<>();
+
+    /**
+     * @param user     the user
+     * @param episode  the episode
+     * @param count    the listen count
+     * @param newEntry if the user never listened to the episode before
+     */
+    public void add(final User user, final EpisodeInput episode, final int count,
+                    final boolean newEntry) {
+        episodes.add(episode.getName(), count, newEntry);
+        fans.add(user.getName(), count, newEntry);
+
+        listens.computeIfAbsent(episode, key -> new HashMap<>())
+                .merge(user.getName(), count, Integer::sum);
+    }
+
+    /**
+     * Drops all listens of the episodes of a podcast
+     *
+     * @param podcast the podcast no longer hosted
+     */
+    public void removePodcast(final Podcast podcast) {
+        for (EpisodeInput episode : podcast.getEpisodes()) {
+            Map<String, Integer> users = listens.remove(episode);
+            if (users == null) {
+                continue;
+            }
+
+            users.forEach((username, count) -> {
+                episodes.remove(episode.getName(), count);
+                fans.remove(username, count);
+            });
+        }
+    }
+
+    /**
+     * Drops all listens of a user to an episode
+     *
+     * @param user    the user
+     * @param episode the episode
+     */
+    public void remove(final User user, final EpisodeInput episode) {
+        Map<String, Integer> users = listens.get(episode);
+        Integer count = (users != null) ? users.remove(user.getName()) : null;
+        if (count == null) {
+            return;
+        }
+
+        episodes.remove(episode.getName(), count);
+        fans.remove(user.getName(), count);
+        if (users.isEmpty()) {
+            listens.remove(episode);
+        }
+    }
+}
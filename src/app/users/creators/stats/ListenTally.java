@@ -0,0 +1,63 @@
+package app.users.creators.stats;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listen counts aggregated by key (song, album, episode or fan name).
+ * <p>
+ * Every key is backed by listen entries (one per user and listened item). A key stays
+ * present while at least one entry backs it, even if its count drops to 0.
+ */
+public final class ListenTally implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final Map<String, Integer> entries = new HashMap<>();
+
+    /**
+     * @param key      the key
+     * @param count    the listen count to be added
+     * @param newEntry if the listens come from a new entry
+     */
+    public void add(final String key, final int count, final boolean newEntry) {
+        counts.merge(key, count, Integer::sum);
+        if (newEntry) {
+            entries.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Drops an entry backing the given key
+     *
+     * @param key   the key
+     * @param count the listen count of the entry
+     */
+    public void remove(final String key, final int count) {
+        int remaining = entries.merge(key, -1, Integer::sum);
+        if (remaining == 0) {
+            entries.remove(key);
+            counts.remove(key);
+        } else {
+            counts.merge(key, -count, Integer::sum);
+        }
+    }
+
+    /**
+     * @return The listen counts by key
+     */
+    public Map<String, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * @return The number of keys
+     */
+    public int size() {
+        return counts.size();
+    }
+}
@@ -10,10 +10,12 @@ import app.users.tie.TiedUserEntity;
 import app.utils.constants.page.PageConstants;
 import app.utils.page.PageInfo;
 import app.utils.page.data.Merchandise;
+import databases.EngineSession;
 import fileio.input.UserInput;
 import lombok.Getter;
 import observer.Observer;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,6 +25,9 @@ import java.util.List;
  * All user page data is stored and handled here.
  */
 public abstract class ObserverUser extends TiedUserEntity implements Observer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final List<String> notifications = new LinkedList<>();
 
     /* Page navigation */
@@ -44,8 +49,8 @@ public abstract class ObserverUser extends TiedUserEntity implements Observer {
     @Getter
     private final List<Merchandise> boughtMerch = new ArrayList<>();
 
-    public ObserverUser(final UserInput userInput) {
-        super(userInput);
+    public ObserverUser(final UserInput userInput, final EngineSession session) {
+        super(userInput, session);
 
         homePage = new HomePage(PageInfo.PageType.HOME, likedSongs, followedPlaylists);
         likedContentPage = new LikedContentPage(
@@ -62,7 +67,7 @@ public abstract class ObserverUser extends TiedUserEntity implements Observer {
      */
     public void setCurrentPage(final Page page) {
         if (historyIndex < pageHistory.size() - 1) {
-            pageHistory = pageHistory.subList(0, historyIndex);
+            pageHistory.subList(historyIndex, pageHistory.size()).clear();
         }
 
         pageHistory.add(page);
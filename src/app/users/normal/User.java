@@ -4,8 +4,10 @@ import app.audiofiles.collections.Podcast;
 import app.users.creators.Artist;
 import app.utils.audiostate.AudioFileState;
 import app.utils.constants.searchbar.SearchBarConstants;
+import app.utils.counter.IntCountMap;
 import databases.UserDatabase;
 import fileio.input.EpisodeInput;
+import databases.EngineSession;
 import fileio.input.UserInput;
 import lombok.Getter;
 import app.audiofiles.AudioFile;
@@ -19,10 +21,10 @@ import app.utils.constants.users.UserConstants;
 import visitor.UserVisitor;
 import visitor.VisitableUser;
 
+import java.io.Serial;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Comparator;
 import java.util.Random;
 import java.util.LinkedHashMap;
@@ -32,27 +34,30 @@ import java.util.LinkedHashMap;
  */
 @Getter
 public final class User extends ObserverUser implements VisitableUser {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /* User-specific entities */
     private final SearchBar searchBar = new SearchBar();
     private final MediaPlayer mediaPlayer;
 
     private final List<Playlist> playlists = new ArrayList<>();
 
-    /* For statistics */
-    private final Map<Song, Integer> listenedSongs = new HashMap<>();
-    private final Map<EpisodeInput, Integer> listenedEpisodes = new HashMap<>();
+    /* For statistics. Keyed by song and episode ids */
+    private final IntCountMap listenedSongs = new IntCountMap();
+    private final IntCountMap listenedEpisodes = new IntCountMap();
 
     /* Note that listenedSongs != premiumSongs + freeSongs */
-    private final Map<Song, Integer> premiumSongs = new HashMap<>();
-    private final Map<Song, Integer> freeSongs = new HashMap<>();
+    private final IntCountMap premiumSongs = new IntCountMap();
+    private final IntCountMap freeSongs = new IntCountMap();
 
     private AudioFile lastRecommendation;
 
     private boolean premium;
     private boolean connected = true;
 
-    public User(final UserInput userInput) {
-        super(userInput);
+    public User(final UserInput userInput, final EngineSession session) {
+        super(userInput, session);
         this.mediaPlayer = new MediaPlayer(this);
     }
 
@@ -166,8 +171,9 @@ public final class User extends ObserverUser implements VisitableUser {
             addToList(recommendations, foundSongs, UserConstants.GENRE_COUNT[i]);
         }
 
-        Playlist recommendation = new Playlist(getName() + "'s recommendations", getName(), true);
-        recommendation.getSongs().addAll(recommendations);
+        Playlist recommendation = new Playlist(getName() + "'s recommendations", getName(), true,
+                getSession());
+        recommendation.addSongs(recommendations);
 
         getHomePage().recommendPlaylist(recommendation);
         lastRecommendation = recommendation;
@@ -192,7 +198,8 @@ public final class User extends ObserverUser implements VisitableUser {
         Playlist recommendation = new Playlist(
                 artist.getName() + " Fan Club recommendations",
                 getName(),
-                true
+                true,
+                getSession()
         );
 
         for (User user : topFans) {
@@ -224,10 +231,11 @@ public final class User extends ObserverUser implements VisitableUser {
      * Clears the premium listened songs map.
      */
     public void addPremiumRevenue() {
-        int size = premiumSongs.values().stream().mapToInt(Integer::intValue).sum();
+        int size = premiumSongs.sum();
 
-        premiumSongs.forEach((key, value) ->
-                key.addRevenue((((double) value) * UserConstants.PREM_COST) / ((double) size))
+        Library library = getSession().getLibrary();
+        premiumSongs.forEach((key, value) -> library.getSongById(key)
+                .addRevenue((((double) value) * UserConstants.PREM_COST) / ((double) size))
         );
         premiumSongs.clear();
     }
@@ -238,27 +246,15 @@ public final class User extends ObserverUser implements VisitableUser {
      * @param adPrice the ad price
      */
     public void addAdRevenue(final double adPrice) {
-        int size = freeSongs.values().stream().mapToInt(Integer::intValue).sum();
+        int size = freeSongs.sum();
 
-        freeSongs.forEach((key, value) ->
-                key.addRevenue((((double) value) * adPrice) / ((double) size))
+        Library library = getSession().getLibrary();
+        freeSongs.forEach((key, value) -> library.getSongById(key)
+                .addRevenue((((double) value) * adPrice) / ((double) size))
         );
         freeSongs.clear();
     }
 
-    /**
-     * Adds a song to a map using merge with Integer::sum
-     *
-     * @param song    the song
-     * @param songMap the song-integer map
-     * @param count   the count to be added with merge
-     */
-    private void addSongToMap(final Song song, final Map<Song, Integer> songMap, final int count) {
-        if (song != null) {
-            songMap.merge(song, count, Integer::sum);
-        }
-    }
-
     /**
      * Switches the premium status of a user
      *
@@ -284,7 +280,21 @@ public final class User extends ObserverUser implements VisitableUser {
      * @param count   listen count
      */
     public void listenTo(final Podcast podcast, final int index, final int count) {
-        listenedEpisodes.merge(podcast.getEpisodes().get(index), count, Integer::sum);
+        EpisodeInput episode = podcast.getEpisodes().get(index);
+        int id = podcast.getEpisodeId(index);
+        boolean newEntry = listenedEpisodes.add(id, count);
+        if (newEntry) {
+            getSession().getLibrary().holdEpisodeId(podcast, index);
+        }
+
+        getSession().getEffects().apply(() -> {
+            if (newEntry) {
+                getSession().getLibrary().addEpisodeListener(id);
+            }
+            if (podcast.getHost() != null) {
+                podcast.getHost().getListens().add(this, episode, count, newEntry);
+            }
+        });
     }
 
     /**
@@ -294,13 +304,27 @@ public final class User extends ObserverUser implements VisitableUser {
      * @param count listen count
      */
     public void listenTo(final Song song, final int count) {
+        if (song == null) {
+            return;
+        }
+
         if (premium) {
-            addSongToMap(song, premiumSongs, count);
+            premiumSongs.add(song.getId(), count);
         } else {
-            addSongToMap(song, freeSongs, count);
+            freeSongs.add(song.getId(), count);
+        }
+
+        boolean newEntry = listenedSongs.add(song.getId(), count);
+        if (newEntry) {
+            getSession().getLibrary().holdSongId(song);
         }
 
-        addSongToMap(song, listenedSongs, count);
+        getSession().getEffects().apply(() -> {
+            if (newEntry) {
+                getSession().getLibrary().addSongListener(song);
+            }
+            getSession().getUserDatabase().addListens(this, song, count, newEntry);
+        });
     }
 
     @Override
@@ -331,7 +355,7 @@ public final class User extends ObserverUser implements VisitableUser {
             return PlaylistConstants.PLAYLIST_EXISTS;
         }
 
-        playlists.add(new Playlist(playlistName, getName(), false));
+        playlists.add(new Playlist(playlistName, getName(), false, getSession()));
         library.addPlaylist(playlists.get(playlists.size() - 1));
 
         return PlaylistConstants.CREATE_SUCCESS;
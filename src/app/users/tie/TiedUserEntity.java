@@ -1,32 +1,53 @@
 package app.users.tie;
 
 import app.utils.tie.TiedEntity;
+import databases.EngineSession;
 import databases.Library;
 import fileio.input.UserInput;
 import lombok.Getter;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Base user class. Wrapper for UserInput.
  * <p>
  * All users have different ties in the library, hence TiedEntity.
  */
 @Getter
-public abstract class TiedUserEntity implements TiedEntity {
+public abstract class TiedUserEntity implements TiedEntity, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final UserInput userInput;
     private int ties;
 
-    public TiedUserEntity(final UserInput userInput) {
+    /* The session the user belongs to */
+    private final EngineSession session;
+
+    public TiedUserEntity(final UserInput userInput, final EngineSession session) {
         this.userInput = userInput;
+        this.session = session;
     }
 
     @Override
     public final void addTie() {
-        ties++;
+        addTies(1);
     }
 
     @Override
     public final void removeTie() {
-        ties = Math.max(0, ties - 1);
+        removeTies(1);
+    }
+
+    @Override
+    public final void addTies(final int count) {
+        session.getEffects().apply(() -> ties += count);
+    }
+
+    @Override
+    public final void removeTies(final int count) {
+        session.getEffects().apply(() -> ties = Math.max(0, ties - count));
     }
 
     /**
@@ -3,12 +3,18 @@ package app.utils.audiostate;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Class describing the state of an audio file inside a media player.
  */
 @Getter
 @Setter
-public class AudioFileState {
+public class AudioFileState implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private int lastIndex;
     private int timePosition;
     private int lastDuration;
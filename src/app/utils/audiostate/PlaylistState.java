@@ -1,9 +1,10 @@
 package app.utils.audiostate;
 
+import app.audiofiles.collections.DurationSums;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.List;
+import java.io.Serial;
 
 /**
  * Class used to store playlist and album states
@@ -11,9 +12,26 @@ import java.util.List;
 @Getter
 @Setter
 public final class PlaylistState extends AudioFileState {
-    private List<Integer> shuffleIndexes;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private ShuffleOrder shuffleOrder;
     private boolean shuffled;
 
+    /* Duration prefix sums in shuffled order and the playlist version they were built for */
+    private DurationSums shuffledDurations;
+    private int shuffledVersion;
+
+    /**
+     * Also drops the durations computed for the previous order
+     *
+     * @param shuffleOrder the new shuffle order
+     */
+    public void setShuffleOrder(final ShuffleOrder shuffleOrder) {
+        this.shuffleOrder = shuffleOrder;
+        shuffledDurations = null;
+    }
+
     @Override
     public void clear() {
         super.clear();
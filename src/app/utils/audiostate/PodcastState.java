@@ -2,11 +2,16 @@ package app.utils.audiostate;
 
 import lombok.Getter;
 
+import java.io.Serial;
+
 /**
  * Podcast "bookmark" class
  */
 @Getter
 public final class PodcastState extends AudioFileState {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final String podcastName;
 
     public PodcastState(final String podcastName) {
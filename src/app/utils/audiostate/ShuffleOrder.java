@@ -0,0 +1,50 @@
+package app.utils.audiostate;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Shuffled play order of a collection, stored as a permutation and its inverse
+ * so that lookups in both directions are constant time.
+ */
+public final class ShuffleOrder implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* indexes[position] is the collection index played at that position */
+    private final int[] indexes;
+    /* positions[index] is the position at which the collection index is played */
+    private final int[] positions;
+
+    public ShuffleOrder(final int[] indexes) {
+        this.indexes = indexes;
+
+        positions = new int[indexes.length];
+        for (int position = 0; position < indexes.length; position++) {
+            positions[indexes[position]] = position;
+        }
+    }
+
+    /**
+     * @return The number of shuffled items
+     */
+    public int size() {
+        return indexes.length;
+    }
+
+    /**
+     * @param position the play position
+     * @return The collection index played at the given position
+     */
+    public int indexAt(final int position) {
+        return indexes[position];
+    }
+
+    /**
+     * @param index the collection index
+     * @return The position at which the index is played
+     */
+    public int positionOf(final int index) {
+        return positions[index];
+    }
+}
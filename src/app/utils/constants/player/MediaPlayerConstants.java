@@ -11,6 +11,7 @@ public final class MediaPlayerConstants {
     public static final String PLAYER_NOT_PLAYING = " is not playing any music.";
     public static final String AD_INSERTED = "Ad inserted successfully.";
     public static final int AD_TIME_START = 11;
+    public static final int NO_EVENT = Integer.MAX_VALUE;
     public static final String NO_SOURCE = "Please select a source before ";
     public static final String NO_LOADED = "Please load a source before ";
     public static final String LOAD_NO_SOURCE = NO_SOURCE + "attempting to load.";
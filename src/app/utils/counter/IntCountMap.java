@@ -0,0 +1,170 @@
+package app.utils.counter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Counter map from non-negative int keys to int counts, without boxing.
+ * <p>
+ * Open addressing with linear probing over two parallel arrays. Entries are never removed
+ * one by one (a count going back to 0 keeps its entry), only all at once with clear.
+ */
+public final class IntCountMap implements Serializable {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+    /* Fibonacci hashing multiplier */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+    private int shift;
+
+    public IntCountMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Receives the entries of the map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * @param key   the key
+         * @param count the count of the key
+         */
+        void accept(int key, int count);
+    }
+
+    /**
+     * @param capacity the new table size, a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+    /**
+     * @param key the key
+     * @return The slot holding the key or the empty slot where it would be inserted
+     */
+    private int slotOf(final int key) {
+        int mask = keys.length - 1;
+        int slot = (key * HASH_MULTIPLIER) >>> shift;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Doubles the table, keeping the load factor at most one half
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Adds to the count of a key, creating its entry if needed
+     *
+     * @param key   the key
+     * @param count the count to be added
+     * @return If the key had no entry before
+     */
+    public boolean add(final int key, final int count) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            counts[slot] += count;
+            return false;
+        }
+
+        keys[slot] = key;
+        counts[slot] = count;
+        size++;
+
+        if (2 * size > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param key the key
+     * @return If the key has an entry
+     */
+    public boolean containsKey(final int key) {
+        return keys[slotOf(key)] == key;
+    }
+
+    /**
+     * @param key the key
+     * @return The count of the key, 0 if it has no entry
+     */
+    public int get(final int key) {
+        int slot = slotOf(key);
+        return (keys[slot] == key) ? counts[slot] : 0;
+    }
+
+    /**
+     * @return The sum of all counts
+     */
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                sum += counts[i];
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * @param consumer receives every entry, in no particular order
+     */
+    public void forEach(final EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return If there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries and shrinks the table back to its initial size
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+}
@@ -4,12 +4,18 @@ import app.users.creators.ContentCreator;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Class containing information about a page
  */
 @Getter
 @Setter
-public final class PageInfo {
+public final class PageInfo implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public enum PageType {
         HOME, LIKED_CONTENT, ARTIST, HOST
     }
@@ -2,13 +2,15 @@ package app.utils.page.data;
 
 import fileio.commands.wrapper.CommandWrapper;
 
+import java.io.Serializable;
+
 /**
  * Announcement record
  *
  * @param name the name
  * @param description the description
  */
-public record Announcement(String name, String description) {
+public record Announcement(String name, String description) implements Serializable {
     /**
      * Creates a new announcement from a JSON input
      *
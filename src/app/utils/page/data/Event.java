@@ -3,6 +3,7 @@ package app.utils.page.data;
 import fileio.commands.wrapper.CommandWrapper;
 import app.utils.constants.page.PageConstants;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
@@ -13,7 +14,7 @@ import java.time.format.DateTimeParseException;
  * @param date the publishing date
  * @param description the description
  */
-public record Event(String name, LocalDate date, String description) {
+public record Event(String name, LocalDate date, String description) implements Serializable {
     /**
      * Creates a new event from a JSON input
      *
@@ -3,15 +3,64 @@ package app.utils.page.data;
 import app.users.creators.Artist;
 import fileio.commands.wrapper.CommandWrapper;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
- * Merchandise record
- *
- * @param name        the name
- * @param price       the price (integer)
- * @param description the description
- * @param owner       the owner of the merch
+ * Merchandise data. A class rather than a record, because the owner's page refers back to it
+ * and records inside reference cycles cannot be restored from snapshots
  */
-public record Merchandise(String name, Integer price, String description, Artist owner) {
+public final class Merchandise implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final Integer price;
+    private final String description;
+    private final Artist owner;
+
+    /**
+     * @param name        the name
+     * @param price       the price (integer)
+     * @param description the description
+     * @param owner       the owner of the merch
+     */
+    public Merchandise(final String name, final Integer price, final String description,
+                       final Artist owner) {
+        this.name = name;
+        this.price = price;
+        this.description = description;
+        this.owner = owner;
+    }
+
+    /**
+     * @return The name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return The price (integer)
+     */
+    public Integer price() {
+        return price;
+    }
+
+    /**
+     * @return The description
+     */
+    public String description() {
+        return description;
+    }
+
+    /**
+     * @return The owner of the merch
+     */
+    public Artist owner() {
+        return owner;
+    }
+
     /**
      * Performs one buy request on the given merch
      */
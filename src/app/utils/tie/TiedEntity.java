@@ -13,4 +13,26 @@ public interface TiedEntity {
      * Removes an existing tie
      */
     void removeTie();
+
+    /**
+     * Adds several ties at once
+     *
+     * @param count the number of ties
+     */
+    default void addTies(final int count) {
+        for (int i = 0; i < count; i++) {
+            addTie();
+        }
+    }
+
+    /**
+     * Removes several ties at once
+     *
+     * @param count the number of ties
+     */
+    default void removeTies(final int count) {
+        for (int i = 0; i < count; i++) {
+            removeTie();
+        }
+    }
 }
@@ -0,0 +1,317 @@
+package benchmark;
+
+import app.admin.Admin;
+import app.audiofiles.Song;
+import app.audiofiles.collections.Playlist;
+import app.audiofiles.collections.Podcast;
+import app.users.normal.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import databases.EngineSession;
+import databases.Library;
+import fileio.commands.search.SearchCommand;
+import fileio.commands.wrapper.CommandWrapper;
+import fileio.input.EpisodeInput;
+import fileio.input.LibraryInput;
+import fileio.input.PodcastInput;
+import fileio.input.SongInput;
+import fileio.input.UserInput;
+import fileio.serialization.SerializationContext;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic engine state for benchmarks, built from a seed.
+ * <p>
+ * The library gets the given number of songs, one podcast for every 50 songs, one artist
+ * (with one album) for every 100 songs and one host for every 5 podcasts. Every normal user
+ * owns a playlist and is playing something on repeat: a song, a playlist, a shuffled
+ * playlist or a podcast, in turns. Every other user is premium. Timestamps only move forward.
+ * <p>
+ * The players can be restarted in the same state at any time, so that benchmarks which move
+ * time forward measure the same work on every iteration.
+ */
+@Getter
+public final class EngineFixture {
+    private static final String[] GENRES = {"pop", "rock", "jazz", "hip hop", "metal", "blues"};
+    private static final String[] WORDS = {"love", "night", "fire", "heart", "road", "rain",
+            "light", "dream", "city", "time", "sky", "river"};
+    private static final String[] TAGS = {"#chill", "#party", "#focus", "#workout", "#classic"};
+
+    private static final int SONGS_PER_PODCAST = 50;
+    private static final int SONGS_PER_ARTIST = 100;
+    private static final int PODCASTS_PER_HOST = 5;
+    private static final int EPISODES = 5;
+    private static final int ALBUM_SIZE = 10;
+    private static final int PLAYLIST_SIZE = 20;
+    private static final int PLAYER_KINDS = 4;
+
+    private final int librarySize;
+    private final int userCount;
+    private final long seed;
+    private final Random random;
+    private final EngineSession session = new EngineSession();
+
+    private final List<String> users = new ArrayList<>();
+    private final List<String> artists = new ArrayList<>();
+    private final List<String> hosts = new ArrayList<>();
+    private final List<SongInput> songs = new ArrayList<>();
+
+    private int timestamp;
+
+    /**
+     * Fills a new session with synthetic data
+     *
+     * @param librarySize the number of library songs
+     * @param userCount   the number of normal users
+     * @param seed        the random seed
+     */
+    public EngineFixture(final int librarySize, final int userCount, final long seed) {
+        this.librarySize = librarySize;
+        this.userCount = userCount;
+        this.seed = seed;
+        this.random = new Random(seed);
+
+        session.getAdmin().addToDatabase(createLibrary());
+        addCreators();
+        createPlaylists();
+        restartPlayers();
+    }
+
+    /**
+     * @param step the time that passes
+     * @return The new timestamp
+     */
+    public int advance(final int step) {
+        timestamp += step;
+        return timestamp;
+    }
+
+    /**
+     * Builds a command the same way the input files are parsed
+     *
+     * @param name     the command name
+     * @param username the username
+     * @param fields   the other fields, as name-value pairs
+     * @return The command, at the current timestamp
+     */
+    public CommandWrapper command(final String name, final String username,
+                                  final Object... fields) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("command", name);
+        json.put("username", username);
+        json.put("timestamp", timestamp);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            json.put((String) fields[i], fields[i + 1]);
+        }
+
+        return mapper().convertValue(json, CommandWrapper.class);
+    }
+
+    /**
+     * @param filters the filters, as name-value pairs
+     * @return Search filters, parsed the same way as the input files
+     */
+    public SearchCommand.SearchFilter filter(final Object... filters) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < filters.length; i += 2) {
+            json.put((String) filters[i], filters[i + 1]);
+        }
+
+        return mapper().convertValue(json, SearchCommand.SearchFilter.class);
+    }
+
+    /**
+     * @param index any index
+     * @return A library song, chosen by index
+     */
+    public SongInput song(final int index) {
+        return songs.get(Math.floorMod(index, songs.size()));
+    }
+
+    /**
+     * @param index any index
+     * @return A normal user, chosen by index
+     */
+    public User user(final int index) {
+        return session.getUserDatabase().getUserByName(
+                users.get(Math.floorMod(index, users.size())));
+    }
+
+    /**
+     * @return The shared object mapper
+     */
+    private static ObjectMapper mapper() {
+        return SerializationContext.getInstance().getObjectMapper();
+    }
+
+    /**
+     * @param count the number of words
+     * @return Random words, separated by spaces
+     */
+    private String words(final int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append((i == 0) ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param name   the song name
+     * @param album  the album name
+     * @param artist the artist name
+     * @return A song with random data
+     */
+    private SongInput createSong(final String name, final String album, final String artist) {
+        SongInput song = new SongInput();
+        song.setName(name);
+        song.setAlbum(album);
+        song.setArtist(artist);
+        song.setGenre(GENRES[random.nextInt(GENRES.length)]);
+        song.setDuration(120 + random.nextInt(240));
+        song.setReleaseYear(1960 + random.nextInt(64));
+        song.setLyrics(words(20));
+
+        ArrayList<String> tags = new ArrayList<>();
+        tags.add(TAGS[random.nextInt(TAGS.length)]);
+        tags.add(TAGS[random.nextInt(TAGS.length)]);
+        song.setTags(tags);
+
+        return song;
+    }
+
+    /**
+     * @return The library input: songs, podcasts and normal users
+     */
+    private LibraryInput createLibrary() {
+        int artistCount = Math.max(1, librarySize / SONGS_PER_ARTIST);
+        for (int i = 0; i < librarySize; i++) {
+            songs.add(createSong("song " + i, "library album " + (i % (artistCount * 2)),
+                    "artist" + (i % artistCount)));
+        }
+
+        ArrayList<PodcastInput> podcasts = new ArrayList<>();
+        int podcastCount = Math.max(1, librarySize / SONGS_PER_PODCAST);
+        int hostCount = Math.max(1, podcastCount / PODCASTS_PER_HOST);
+        for (int i = 0; i < podcastCount; i++) {
+            PodcastInput podcast = new PodcastInput();
+            podcast.setName("podcast " + i);
+            podcast.setOwner("host" + (i % hostCount));
+
+            ArrayList<EpisodeInput> episodes = new ArrayList<>();
+            for (int j = 0; j < EPISODES; j++) {
+                EpisodeInput episode = new EpisodeInput();
+                episode.setName("episode " + i + "." + j);
+                episode.setDuration(600 + random.nextInt(1800));
+                episode.setDescription(words(5));
+                episodes.add(episode);
+            }
+            podcast.setEpisodes(episodes);
+            podcasts.add(podcast);
+        }
+
+        ArrayList<UserInput> userInputs = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            UserInput user = new UserInput();
+            user.setUsername("user" + i);
+            user.setAge(18 + random.nextInt(50));
+            user.setCity("city" + random.nextInt(10));
+            userInputs.add(user);
+            users.add(user.getUsername());
+        }
+
+        for (int i = 0; i < artistCount; i++) {
+            artists.add("artist" + i);
+        }
+        for (int i = 0; i < hostCount; i++) {
+            hosts.add("host" + i);
+        }
+
+        LibraryInput library = new LibraryInput();
+        library.setSongs(new ArrayList<>(songs));
+        library.setPodcasts(podcasts);
+        library.setUsers(userInputs);
+        return library;
+    }
+
+    /**
+     * Adds the artists (each with an album) and the hosts of the library podcasts
+     */
+    private void addCreators() {
+        Admin admin = session.getAdmin();
+        for (String artist : artists) {
+            admin.addUser(command("addUser", artist, "type", "artist", "age", 30, "city", "x"));
+
+            List<SongInput> albumSongs = new ArrayList<>();
+            for (int i = 0; i < ALBUM_SIZE; i++) {
+                albumSongs.add(createSong(artist + " hit " + i, artist + " album", artist));
+            }
+            admin.addAlbum(command("addAlbum", artist, "name", artist + " album",
+                    "releaseYear", 2020, "description", words(5), "songs", albumSongs));
+        }
+
+        for (String host : hosts) {
+            admin.addUser(command("addUser", host, "type", "host", "age", 40, "city", "x"));
+        }
+    }
+
+    /**
+     * Gives every user a playlist and makes every other user premium
+     */
+    private void createPlaylists() {
+        Library library = session.getLibrary();
+
+        for (int i = 0; i < users.size(); i++) {
+            User user = user(i);
+            user.createPlaylist("playlist " + i, library);
+
+            List<Song> playlistSongs = new ArrayList<>();
+            for (int j = 0; j < PLAYLIST_SIZE; j++) {
+                playlistSongs.add(library.getSongsByFilters(
+                        filter("name", song(random.nextInt()).getName())).get(0));
+            }
+            user.getPlaylistByName("playlist " + i).addSongs(playlistSongs);
+
+            if (i % 2 == 1) {
+                user.switchPremium();
+            }
+        }
+    }
+
+    /**
+     * (Re)starts the players of all users at the current timestamp, on repeat. The choices
+     * are drawn from the fixture seed, so every restart leads to the same player states
+     */
+    public void restartPlayers() {
+        Random players = new Random(seed);
+        List<Podcast> podcasts = session.getLibrary().getPodcasts();
+
+        for (int i = 0; i < users.size(); i++) {
+            User user = user(i);
+            Playlist playlist = user.getPlaylistByName("playlist " + i);
+
+            int kind = i % PLAYER_KINDS;
+            if (kind == 0) {
+                user.getMediaPlayer().loadFile(playlist.getSongs().get(0), false, timestamp);
+                user.getMediaPlayer().repeatFile(timestamp);
+                user.getMediaPlayer().repeatFile(timestamp);
+            } else if (kind == 3) {
+                Podcast podcast = podcasts.get(players.nextInt(podcasts.size()));
+                user.getMediaPlayer().loadFile(podcast, true, timestamp);
+                user.getMediaPlayer().repeatFile(timestamp);
+                user.getMediaPlayer().repeatFile(timestamp);
+            } else {
+                user.getMediaPlayer().loadFile(playlist, false, timestamp);
+                user.getMediaPlayer().repeatFile(timestamp);
+                if (kind == 2) {
+                    user.getMediaPlayer().shuffleLoadedFile(players.nextInt(), timestamp);
+                }
+            }
+        }
+    }
+}
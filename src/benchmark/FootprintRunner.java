@@ -0,0 +1,210 @@
+package benchmark;
+
+import app.audiofiles.Song;
+import app.users.normal.User;
+import databases.EngineSession;
+import fileio.input.LibraryInput;
+import fileio.input.UserInput;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the heap footprint of the user listens.
+ * <p>
+ * A synthetic library is built, then the given number of users are added and every user
+ * listens to the given number of distinct library songs (every other user is premium). The
+ * used heap after a full garbage collection is compared before and after the listens. The
+ * listens aggregated by artist are then dropped and measured apart from the user counters.
+ * For reference, the same listens are stored in hash maps from songs to boxed counts (one for
+ * all listens and one for the premium or free listens of each user, as the users kept them
+ * before the primitive counters) and measured the same way.
+ * <p>
+ * When the users do not fit in the heap, run a smaller count: the footprint is linear in the
+ * number of users, and is also reported projected to {@code --project} users.
+ * <p>
+ * Arguments (all optional): {@code --users 100000 --songs 200 --library 10000
+ * --project 1000000 --seed 42}
+ */
+public final class FootprintRunner {
+    private static final double BYTES_PER_MIB = 1 << 20;
+    private static final double BYTES_PER_GIB = 1 << 30;
+    private static final int GC_ROUNDS = 3;
+
+    private int userCount = 100_000;
+    private int songsPerUser = 200;
+    private int librarySize = 10_000;
+    private int projectedUsers = 1_000_000;
+    private long seed = 42;
+
+    /* Kept reachable while the heap is measured */
+    private EngineSession session;
+    private List<Map<Song, Integer>> boxedListens;
+
+    /**
+     * for coding style
+     */
+    private FootprintRunner() {
+    }
+
+    /**
+     * @param args the footprint parameters
+     */
+    public static void main(final String[] args) {
+        FootprintRunner runner = new FootprintRunner();
+        runner.parse(args);
+        runner.run();
+    }
+
+    /**
+     * @param args the footprint parameters, as name-value pairs
+     */
+    private void parse(final String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--users" -> userCount = value;
+                case "--songs" -> songsPerUser = value;
+                case "--library" -> librarySize = value;
+                case "--project" -> projectedUsers = value;
+                case "--seed" -> seed = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (songsPerUser > librarySize) {
+            throw new IllegalArgumentException("More songs per user than library songs");
+        }
+    }
+
+    /**
+     * Builds the state step by step and prints the heap used by each step
+     */
+    private void run() {
+        session = new EngineFixture(librarySize, 0, seed).getSession();
+        long libraryHeap = usedHeap();
+
+        addUsers();
+        long usersHeap = usedHeap();
+
+        int[][] listened = listenAll();
+        long listensHeap = usedHeap();
+
+        session.getUserDatabase().getArtistListens().clear();
+        long userListensHeap = usedHeap();
+
+        boxedListens = boxedCopy(listened);
+        long boxedHeap = usedHeap();
+
+        System.out.printf(Locale.ROOT, "%d users, %d songs each, library of %d songs, heap limit"
+                        + " %.0f MiB%n", userCount, songsPerUser, librarySize,
+                Runtime.getRuntime().maxMemory() / BYTES_PER_MIB);
+        System.out.printf(Locale.ROOT, "%-22s %10.1f MiB%n", "library",
+                libraryHeap / BYTES_PER_MIB);
+        report("users (no listens)", usersHeap, libraryHeap);
+        report("artist listens", listensHeap, userListensHeap);
+        report("user listens", userListensHeap, usersHeap);
+        report("user listens (boxed)", boxedHeap, userListensHeap);
+    }
+
+    /**
+     * Adds the users, every other one premium
+     */
+    private void addUsers() {
+        ArrayList<UserInput> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            UserInput user = new UserInput();
+            user.setUsername("user" + i);
+            user.setAge(18 + (i % 50));
+            user.setCity("city" + (i % 10));
+            users.add(user);
+        }
+
+        LibraryInput input = new LibraryInput();
+        input.setSongs(new ArrayList<>());
+        input.setPodcasts(new ArrayList<>());
+        input.setUsers(users);
+        session.getAdmin().addToDatabase(input);
+
+        List<User> added = session.getUserDatabase().getUsers();
+        for (int i = 1; i < added.size(); i += 2) {
+            added.get(i).switchPremium();
+        }
+    }
+
+    /**
+     * Every user listens once to distinct random songs
+     *
+     * @return The song ids listened by each user
+     */
+    private int[][] listenAll() {
+        Random random = new Random(seed);
+        List<User> users = session.getUserDatabase().getUsers();
+        int[][] listened = new int[users.size()][];
+
+        for (int i = 0; i < users.size(); i++) {
+            listened[i] = random.ints(0, librarySize).distinct().limit(songsPerUser).toArray();
+            for (int id : listened[i]) {
+                Song song = session.getLibrary().getSongById(id);
+                users.get(i).listenTo(song, 1);
+            }
+        }
+
+        return listened;
+    }
+
+    /**
+     * @param listened the song ids listened by each user
+     * @return Two maps per user from songs to boxed counts, holding the same counts
+     */
+    private List<Map<Song, Integer>> boxedCopy(final int[][] listened) {
+        List<Map<Song, Integer>> maps = new ArrayList<>(2 * listened.length);
+        for (int[] ids : listened) {
+            Map<Song, Integer> all = new HashMap<>();
+            Map<Song, Integer> paid = new HashMap<>();
+            for (int id : ids) {
+                Song song = session.getLibrary().getSongById(id);
+                all.merge(song, 1, Integer::sum);
+                paid.merge(song, 1, Integer::sum);
+            }
+            maps.add(all);
+            maps.add(paid);
+        }
+
+        return maps;
+    }
+
+    /**
+     * @return The used heap after full garbage collections (bytes)
+     */
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            memory.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Prints the heap used by one step, per user and projected
+     *
+     * @param step   the step name
+     * @param after  the used heap after the step
+     * @param before the used heap before the step
+     */
+    private void report(final String step, final long after, final long before) {
+        long bytes = after - before;
+        double perUser = (userCount == 0) ? 0.0 : (double) bytes / userCount;
+
+        System.out.printf(Locale.ROOT, "%-22s %10.1f MiB %10.1f bytes/user %8.2f GiB at %d"
+                        + " users%n", step, bytes / BYTES_PER_MIB, perUser,
+                perUser * projectedUsers / BYTES_PER_GIB, projectedUsers);
+    }
+}
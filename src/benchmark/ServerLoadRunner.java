@@ -0,0 +1,204 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.serialization.SerializationContext;
+import server.CommandServer;
+import server.ConnectionThreads;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the command server, over localhost.
+ * <p>
+ * A server is started on a synthetic engine state, then every client connection sends its
+ * requests (a fixed mix of player and search bar commands for one user), keeping up to
+ * {@code window} requests in flight. The sustained requests per second are reported.
+ * <p>
+ * Arguments (all optional): {@code --connections 2000 --requests 100 --window 8
+ * --library 1000 --users 1000 --seed 42}
+ */
+public final class ServerLoadRunner {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String[] COMMAND_MIX = {"search", "select", "load", "status",
+            "playPause", "status", "playPause", "next"};
+
+    private int connections = 2000;
+    private int requests = 100;
+    private int window = 8;
+    private int librarySize = 1000;
+    private int userCount = 1000;
+    private long seed = 42;
+
+    /* Shared by all clients, so timestamps only move forward */
+    private final AtomicInteger timestamp = new AtomicInteger();
+
+    /**
+     * for coding style
+     */
+    private ServerLoadRunner() {
+    }
+
+    /**
+     * @param args the load test parameters
+     * @throws IOException in case of exceptions to starting the server
+     */
+    public static void main(final String[] args) throws IOException {
+        ServerLoadRunner runner = new ServerLoadRunner();
+        runner.parse(args);
+        runner.run();
+    }
+
+    /**
+     * @param args the load test parameters, as name-value pairs
+     */
+    private void parse(final String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--connections" -> connections = value;
+                case "--requests" -> requests = value;
+                case "--window" -> window = Math.max(1, value);
+                case "--library" -> librarySize = value;
+                case "--users" -> userCount = value;
+                case "--seed" -> seed = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Starts the server, runs all clients and prints the results
+     *
+     * @throws IOException in case of exceptions to starting the server
+     */
+    private void run() throws IOException {
+        EngineFixture fixture = new EngineFixture(librarySize, userCount, seed);
+        timestamp.set(fixture.advance(0));
+
+        try (CommandServer server = new CommandServer(fixture.getSession(), 0)) {
+            server.start();
+
+            ExecutorService clients = ConnectionThreads.newExecutor();
+            List<Future<Integer>> results = new ArrayList<>();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                String username = fixture.user(i).getName();
+                String genre = fixture.song(i).getGenre();
+                results.add(clients.submit(() -> client(server.getPort(), username, genre)));
+            }
+
+            int responses = 0;
+            int errors = 0;
+            for (Future<Integer> result : results) {
+                try {
+                    int answered = result.get();
+                    responses += answered;
+                    errors += requests - answered;
+                } catch (ExecutionException e) {
+                    errors += requests;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            long total = System.nanoTime() - start;
+            clients.shutdown();
+
+            System.out.printf(Locale.ROOT, "%d connections (%s threads), %d requests each,"
+                            + " window %d%n", connections,
+                    ConnectionThreads.isVirtual() ? "virtual" : "platform", requests, window);
+            System.out.printf(Locale.ROOT, "%d responses, %d errors in %.1f ms: %.0f requests/s%n",
+                    responses, errors, total / NANOS_PER_MILLI,
+                    (total == 0) ? 0.0 : responses * NANOS_PER_SECOND / total);
+        }
+    }
+
+    /**
+     * Sends all requests of one connection, with up to window requests in flight
+     *
+     * @param port     the server port
+     * @param username the user sending the commands
+     * @param genre    the genre searched for
+     * @return The number of responses which are not errors
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    private int client(final int port, final String username, final String genre)
+            throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+
+            int sent = 0;
+            int received = 0;
+            int answered = 0;
+            while (received < requests) {
+                while (sent < requests && sent - received < window) {
+                    out.write(request(sent, username, genre));
+                    out.write('\n');
+                    sent++;
+                }
+                out.flush();
+
+                String line = in.readLine();
+                if (line == null) {
+                    break;
+                }
+
+                received++;
+                if (!line.startsWith("{\"error\"")) {
+                    answered++;
+                }
+            }
+
+            return answered;
+        }
+    }
+
+    /**
+     * @param index    the request index
+     * @param username the user sending the command
+     * @param genre    the genre searched for
+     * @return The command, as JSON
+     * @throws IOException in case of exceptions to serializing
+     */
+    private String request(final int index, final String username, final String genre)
+            throws IOException {
+        ObjectMapper mapper = SerializationContext.getInstance().getObjectMapper();
+        ObjectNode node = mapper.createObjectNode();
+
+        String name = COMMAND_MIX[index % COMMAND_MIX.length];
+        node.put("command", name);
+        node.put("username", username);
+        node.put("timestamp", timestamp.incrementAndGet());
+
+        if (name.equals("search")) {
+            node.put("type", "song");
+            node.putObject("filters").put("genre", genre);
+        } else if (name.equals("select")) {
+            node.put("itemNumber", 1);
+        }
+
+        return mapper.writeValueAsString(node);
+    }
+}
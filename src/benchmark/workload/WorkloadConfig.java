@@ -0,0 +1,74 @@
+package benchmark.workload;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parameters of a synthetic workload. The defaults describe a small library.
+ */
+@Getter
+@Setter
+public final class WorkloadConfig {
+    private long seed = 42;
+
+    /* Library input */
+    private int songs = 1000;
+    private int podcasts = 20;
+    private int users = 100;
+    private int episodesPerPodcast = 5;
+
+    /* Creators, added by the first commands */
+    private int artists = 10;
+    private int hosts = 4;
+    private int albumSize = 10;
+
+    /* Command stream */
+    private int commands = 10000;
+    /* Zipf exponent of song, podcast and user popularity */
+    private double popularity = 1.1;
+    /* Mean number of seconds between two commands */
+    private int spacing = 5;
+    /* Relative weight of each command */
+    private Map<String, Integer> mix = defaultMix();
+
+    /**
+     * @return The default command mix, mostly playback and searches. Each search is also
+     * followed by a selection and a load (or a follow). Commands drawn for a user in whose
+     * state they would fail are drawn again, so the weights are only approximate.
+     * <p>
+     * Playlist edits are left out: the engine does not support editing a playlist
+     * while it is playing, and the stream cannot tell when that is the case.
+     */
+    public static Map<String, Integer> defaultMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put("search", 12);
+        mix.put("select", 2);
+        mix.put("load", 2);
+        mix.put("status", 12);
+        mix.put("playPause", 5);
+        mix.put("next", 5);
+        mix.put("prev", 3);
+        mix.put("forward", 2);
+        mix.put("backward", 2);
+        mix.put("like", 5);
+        mix.put("repeat", 3);
+        mix.put("shuffle", 2);
+        mix.put("createPlaylist", 2);
+        mix.put("follow", 1);
+        mix.put("wrapped", 3);
+        mix.put("adBreak", 3);
+        mix.put("buyPremium", 1);
+        mix.put("cancelPremium", 1);
+        mix.put("changePage", 2);
+        mix.put("printCurrentPage", 2);
+        mix.put("subscribe", 1);
+        mix.put("getTop5Songs", 1);
+        mix.put("getTop5Albums", 1);
+        mix.put("getTop5Artists", 1);
+        mix.put("getTop5Playlists", 1);
+        return mix;
+    }
+}
@@ -0,0 +1,823 @@
+package benchmark.workload;
+
+import app.utils.constants.searchbar.SearchBarConstants;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.input.EpisodeInput;
+import fileio.input.LibraryInput;
+import fileio.input.PodcastInput;
+import fileio.input.SongInput;
+import fileio.input.UserInput;
+import fileio.serialization.SerializationContext;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Seeded generator of synthetic inputs: a library and a matching command stream.
+ * <p>
+ * The library holds songs, podcasts and normal users. The first commands add the artists
+ * (each with an album and merch) and the hosts (each with a podcast), then the workload
+ * commands follow, drawn from the configured mix. Songs, podcasts and users are picked
+ * with Zipf-distributed popularity, and timestamps are spaced randomly around the mean.
+ * <p>
+ * A minimal state is tracked for every user (search results, selection, loaded source,
+ * page, playlists), so that only commands which succeed in that state are sent, and
+ * selections never exceed the result count. The same configuration always gives the same
+ * output.
+ */
+public final class WorkloadGenerator {
+    private static final String[] GENRES = {"pop", "rock", "jazz", "hip hop", "metal", "blues",
+            "country", "electronic", "folk", "classical"};
+    private static final String[] WORDS = {"love", "night", "fire", "heart", "road", "rain",
+            "light", "dream", "city", "time", "sky", "river", "gold", "shadow", "summer", "home"};
+    private static final String[] TAGS = {"#chill", "#party", "#focus", "#workout", "#classic",
+            "#indie", "#live", "#acoustic"};
+    /* The creator pages need a loaded file, which the stream cannot guarantee */
+    private static final String[] PAGES = {"Home", "LikedContent"};
+    private static final String[] SONG_FILTERS = {"name", "album", "tags", "lyrics", "genre",
+            "releaseYear", "artist"};
+    private static final String[] SEARCH_TYPES = {"song", "song", "song", "song", "song",
+            "song", "podcast", "podcast", "album", "playlist", "artist", "host"};
+
+    private static final int MIN_SONG_DURATION = 90;
+    private static final int SONG_DURATION_RANGE = 300;
+    private static final int MIN_EPISODE_DURATION = 300;
+    private static final int EPISODE_DURATION_RANGE = 3000;
+    private static final int FIRST_YEAR = 1960;
+    private static final int YEAR_RANGE = 65;
+    private static final int LYRICS_WORDS = 24;
+    private static final int MAX_AD_PRICE = 3000;
+    private static final int MAX_MERCH_PRICE = 100;
+    private static final int MAX_PLAYLISTS = 5;
+    private static final int MAX_ITEM = 3;
+    private static final int RESULTS_MAX = SearchBarConstants.RESULTS_MAX_SIZE;
+    /* Seconds skipped by forward */
+    private static final int SKIP_TIME = 90;
+    /* Draws of a command and a user before falling back to a search */
+    private static final int MAX_ATTEMPTS = 32;
+    private static final String SEARCH = "search";
+    private static final int CREATOR_WRAPPED_PERCENT = 20;
+    private static final int PERCENT = 100;
+
+    private final WorkloadConfig config;
+    private final ObjectMapper mapper = SerializationContext.getInstance().getObjectMapper();
+
+    /* Separate sources, so that the library does not depend on the command stream */
+    private final Random libraryRandom;
+    private final Random commandRandom;
+
+    @Getter
+    private final LibraryInput library;
+    @Getter
+    private final List<String> artists = new ArrayList<>();
+    @Getter
+    private final List<String> hosts = new ArrayList<>();
+
+    private final ZipfSampler songPopularity;
+    private final ZipfSampler podcastPopularity;
+    private final ZipfSampler userPopularity;
+
+    /* Command names and their cumulative weights */
+    private final List<String> commandNames;
+    private final int[] commandWeights;
+
+    /* Commands (name and user) that must come next */
+    private final Deque<String[]> followUps = new ArrayDeque<>();
+
+    /* Everything searches can find: the library and the files added by the setup commands */
+    private final List<SongInput> allSongs = new ArrayList<>();
+    private final List<PodcastInput> allPodcasts = new ArrayList<>();
+
+    /* Tracked state of the users sent commands, and the users with public playlists */
+    private final Map<String, UserState> states = new HashMap<>();
+    private final Set<String> publicOwners = new LinkedHashSet<>();
+
+    @Getter
+    private int timestamp;
+
+    /**
+     * @param config the workload parameters
+     */
+    public WorkloadGenerator(final WorkloadConfig config) {
+        this.config = config;
+        libraryRandom = new Random(config.getSeed());
+        commandRandom = new Random(~config.getSeed());
+
+        for (int i = 0; i < Math.max(1, config.getArtists()); i++) {
+            artists.add("artist" + i);
+        }
+        for (int i = 0; i < Math.max(1, config.getHosts()); i++) {
+            hosts.add("host" + i);
+        }
+
+        library = createLibrary();
+        allSongs.addAll(library.getSongs());
+        allPodcasts.addAll(library.getPodcasts());
+
+        songPopularity = new ZipfSampler(Math.max(1, config.getSongs()),
+                config.getPopularity(), commandRandom);
+        podcastPopularity = new ZipfSampler(Math.max(1, config.getPodcasts()),
+                config.getPopularity(), commandRandom);
+        userPopularity = new ZipfSampler(config.getUsers(), config.getPopularity(), commandRandom);
+
+        commandNames = new ArrayList<>(config.getMix().keySet());
+        commandWeights = new int[commandNames.size()];
+        int total = 0;
+        for (int i = 0; i < commandNames.size(); i++) {
+            total += config.getMix().get(commandNames.get(i));
+            commandWeights[i] = total;
+        }
+    }
+
+    /**
+     * @param count  the number of words
+     * @param random the random source
+     * @return Random words, separated by spaces
+     */
+    private static String words(final int count, final Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append((i == 0) ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param name   the song name
+     * @param album  the album name
+     * @param artist the artist name
+     * @return A song with random data
+     */
+    private SongInput createSong(final String name, final String album, final String artist) {
+        SongInput song = new SongInput();
+        song.setName(name);
+        song.setAlbum(album);
+        song.setArtist(artist);
+        song.setGenre(GENRES[libraryRandom.nextInt(GENRES.length)]);
+        song.setDuration(MIN_SONG_DURATION + libraryRandom.nextInt(SONG_DURATION_RANGE));
+        song.setReleaseYear(FIRST_YEAR + libraryRandom.nextInt(YEAR_RANGE));
+        song.setLyrics(words(LYRICS_WORDS, libraryRandom));
+
+        ArrayList<String> tags = new ArrayList<>();
+        tags.add(TAGS[libraryRandom.nextInt(TAGS.length)]);
+        String second = TAGS[libraryRandom.nextInt(TAGS.length)];
+        if (!tags.contains(second)) {
+            tags.add(second);
+        }
+        song.setTags(tags);
+
+        return song;
+    }
+
+    /**
+     * @param name the episode name
+     * @return An episode with random data
+     */
+    private EpisodeInput createEpisode(final String name) {
+        EpisodeInput episode = new EpisodeInput();
+        episode.setName(name);
+        episode.setDuration(MIN_EPISODE_DURATION + libraryRandom.nextInt(EPISODE_DURATION_RANGE));
+        episode.setDescription(words(2, libraryRandom));
+        return episode;
+    }
+
+    /**
+     * @return The library input: songs, podcasts (owned by the hosts) and normal users
+     */
+    private LibraryInput createLibrary() {
+        ArrayList<SongInput> songs = new ArrayList<>();
+        for (int i = 0; i < config.getSongs(); i++) {
+            String artist = artists.get(i % artists.size());
+            songs.add(createSong(words(2, libraryRandom) + " " + i,
+                    artist + " record " + (i / artists.size() / config.getAlbumSize()), artist));
+        }
+
+        ArrayList<PodcastInput> podcasts = new ArrayList<>();
+        for (int i = 0; i < config.getPodcasts(); i++) {
+            PodcastInput podcast = new PodcastInput();
+            podcast.setName(words(1, libraryRandom) + " talk " + i);
+            podcast.setOwner(hosts.get(i % hosts.size()));
+
+            ArrayList<EpisodeInput> episodes = new ArrayList<>();
+            for (int j = 0; j < config.getEpisodesPerPodcast(); j++) {
+                episodes.add(createEpisode(podcast.getName() + " #" + j));
+            }
+            podcast.setEpisodes(episodes);
+            podcasts.add(podcast);
+        }
+
+        ArrayList<UserInput> users = new ArrayList<>();
+        for (int i = 0; i < config.getUsers(); i++) {
+            UserInput user = new UserInput();
+            user.setUsername("user" + i);
+            user.setAge(16 + libraryRandom.nextInt(60));
+            user.setCity("city" + libraryRandom.nextInt(20));
+            users.add(user);
+        }
+
+        LibraryInput result = new LibraryInput();
+        result.setSongs(songs);
+        result.setPodcasts(podcasts);
+        result.setUsers(users);
+        return result;
+    }
+
+    /**
+     * @param name     the command name
+     * @param username the username
+     * @return A command node at the current timestamp
+     */
+    private ObjectNode command(final String name, final String username) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("command", name);
+        node.put("username", username);
+        node.put("timestamp", timestamp);
+        return node;
+    }
+
+    /**
+     * @return The commands adding the artists (with an album and merch) and the hosts
+     * (with a podcast), all at timestamp 0
+     */
+    public List<ObjectNode> createSetupCommands() {
+        List<ObjectNode> commands = new ArrayList<>();
+
+        for (String artist : artists) {
+            commands.add(command("addUser", artist).put("type", "artist")
+                    .put("age", 30).put("city", "city0"));
+
+            String album = artist + " album";
+            ObjectNode addAlbum = command("addAlbum", artist).put("name", album)
+                    .put("releaseYear", 2023).put("description", words(3, libraryRandom));
+            ArrayNode songs = addAlbum.putArray("songs");
+            for (int i = 0; i < config.getAlbumSize(); i++) {
+                SongInput song = createSong(album + " track " + i, album, artist);
+                allSongs.add(song);
+                songs.addPOJO(song);
+            }
+            commands.add(addAlbum);
+
+            commands.add(command("addMerch", artist).put("name", artist + " shirt")
+                    .put("description", "shirt")
+                    .put("price", 1 + libraryRandom.nextInt(MAX_MERCH_PRICE)));
+        }
+
+        for (String host : hosts) {
+            commands.add(command("addUser", host).put("type", "host")
+                    .put("age", 40).put("city", "city0"));
+
+            String podcast = host + " show";
+            ObjectNode addPodcast = command("addPodcast", host).put("name", podcast);
+            ArrayNode episodes = addPodcast.putArray("episodes");
+            ArrayList<EpisodeInput> show = new ArrayList<>();
+            for (int i = 0; i < config.getEpisodesPerPodcast(); i++) {
+                show.add(createEpisode(podcast + " #" + i));
+                episodes.addPOJO(show.get(i));
+            }
+            commands.add(addPodcast);
+
+            PodcastInput added = new PodcastInput();
+            added.setName(podcast);
+            added.setOwner(host);
+            added.setEpisodes(show);
+            allPodcasts.add(added);
+        }
+
+        return commands;
+    }
+
+    /**
+     * Moves the clock forward, by a random gap with the configured mean
+     *
+     * @return The new timestamp
+     */
+    public int advance() {
+        double gap = -Math.log(1 - commandRandom.nextDouble()) * config.getSpacing();
+        timestamp += Math.max(1, (int) Math.round(gap));
+        return timestamp;
+    }
+
+    /**
+     * @param start the timestamp of the next command is after this one
+     */
+    public void setTimestamp(final int start) {
+        timestamp = start;
+    }
+
+    /**
+     * @return The next workload command, after the previous one. Commands are only sent to
+     * users in a state where they are valid: a search is followed by a selection of an
+     * existing result, then by a load (or a follow, for playlists), and player commands only
+     * go to users whose loaded source is surely still playing
+     */
+    public ObjectNode nextCommand() {
+        advance();
+
+        String name;
+        String user;
+        String[] followUp = followUps.poll();
+        if (followUp != null) {
+            name = followUp[0];
+            user = followUp[1];
+        } else {
+            name = SEARCH;
+            user = null;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                String candidate = library.getUsers().get(userPopularity.next()).getUsername();
+                String command = pickCommand();
+                if (isValid(command, stateOf(candidate))) {
+                    name = command;
+                    user = candidate;
+                    break;
+                }
+            }
+
+            /* A search is always valid, and leads to a loaded source */
+            if (user == null) {
+                user = library.getUsers().get(userPopularity.next()).getUsername();
+            }
+        }
+
+        UserState state = stateOf(user);
+        return switch (name) {
+            case SEARCH -> search(command(name, user), user, state);
+            case "select" -> select(command(name, user), state);
+            case "load" -> {
+                state.load(timestamp);
+                yield command(name, user);
+            }
+            case "follow" -> {
+                state.selectedType = null;
+                yield command(name, user);
+            }
+            case "playPause" -> {
+                state.paused = !state.paused;
+                yield command(name, user);
+            }
+            case "next" -> {
+                state.skips++;
+                state.paused = false;
+                yield command(name, user);
+            }
+            case "forward" -> {
+                state.forwarded += SKIP_TIME;
+                yield command(name, user);
+            }
+            case "buyPremium", "cancelPremium" -> {
+                state.premium = !state.premium;
+                yield command(name, user);
+            }
+            case "shuffle" -> command(name, user).put("seed", commandRandom.nextInt(PERCENT));
+            case "createPlaylist" -> createPlaylist(command(name, user), user, state);
+            case "addRemoveInPlaylist" -> command(name, user)
+                    .put("playlistId", 1 + commandRandom.nextInt(state.playlists.size()));
+            case "switchVisibility" -> switchVisibility(command(name, user), user, state);
+            case "adBreak" -> command(name, user)
+                    .put("price", 1 + commandRandom.nextInt(MAX_AD_PRICE));
+            case "changePage" -> {
+                state.pageCreator = null;
+                yield command(name, user)
+                        .put("nextPage", PAGES[commandRandom.nextInt(PAGES.length)]);
+            }
+            case "buyMerch" -> command(name, user).put("name", state.pageCreator + " shirt");
+            case "updateRecommendations" -> command(name, user)
+                    .put("recommendationType", "random_song");
+            case "wrapped" -> command(name, wrappedUser(user));
+            default -> command(name, user);
+        };
+    }
+
+    /**
+     * @return A command name, drawn from the mix
+     */
+    private String pickCommand() {
+        int pick = commandRandom.nextInt(commandWeights[commandWeights.length - 1]);
+        int index = 0;
+        while (commandWeights[index] <= pick) {
+            index++;
+        }
+        return commandNames.get(index);
+    }
+
+    /**
+     * @param user the username
+     * @return The tracked state of the user
+     */
+    private UserState stateOf(final String user) {
+        return states.computeIfAbsent(user, key -> new UserState());
+    }
+
+    /**
+     * @param name  the command name
+     * @param state the state of the user
+     * @return If the command succeeds in that state
+     */
+    private boolean isValid(final String name, final UserState state) {
+        int tracksLeft = state.tracksLeft(timestamp, config.getAlbumSize());
+        boolean playing = tracksLeft > 0;
+        return switch (name) {
+            case "select" -> state.results > 0;
+            case "load" -> state.selectedType != null && !state.selectedType.equals("playlist");
+            case "follow" -> "playlist".equals(state.selectedType);
+            case "playPause", "prev", "repeat" -> playing;
+            /* Skipping the last track fails */
+            case "next" -> tracksLeft > 1;
+            case "like" -> playing && !state.loadedType.equals("podcast");
+            case "shuffle" -> playing && state.loadedType.equals("album");
+            case "forward", "backward" -> playing && state.loadedType.equals("podcast");
+            case "adBreak" -> playing && !state.paused;
+            case "addRemoveInPlaylist" -> playing && state.loadedType.equals("song")
+                    && !state.playlists.isEmpty();
+            case "buyPremium" -> !state.premium;
+            case "cancelPremium" -> state.premium;
+            case "createPlaylist" -> state.playlists.size() < MAX_PLAYLISTS;
+            case "switchVisibility" -> !state.playlists.isEmpty();
+            case "subscribe" -> state.pageCreator != null;
+            case "buyMerch" -> state.pageCreator != null && artists.contains(state.pageCreator);
+            default -> true;
+        };
+    }
+
+    /**
+     * Selects one of the results of the last search
+     *
+     * @param node  the select command
+     * @param state the state of the user
+     * @return The select command
+     */
+    private ObjectNode select(final ObjectNode node, final UserState state) {
+        int item = 1 + commandRandom.nextInt(Math.min(MAX_ITEM, state.results));
+        node.put("itemNumber", item);
+
+        if (state.creatorResults != null) {
+            state.pageCreator = state.creatorResults.get(item - 1);
+        } else {
+            state.selectedType = state.resultType;
+        }
+        state.results = 0;
+        state.creatorResults = null;
+        return node;
+    }
+
+    /**
+     * @param node  the createPlaylist command
+     * @param user  the username
+     * @param state the state of the user
+     * @return The command, with a playlist name the user does not have yet
+     */
+    private ObjectNode createPlaylist(final ObjectNode node, final String user,
+                                      final UserState state) {
+        String playlist = "playlist " + state.playlists.size();
+        state.playlists.add(true);
+        publicOwners.add(user);
+        return node.put("playlistName", playlist);
+    }
+
+    /**
+     * @param node  the switchVisibility command
+     * @param user  the username
+     * @param state the state of the user
+     * @return The command, for one of the user playlists
+     */
+    private ObjectNode switchVisibility(final ObjectNode node, final String user,
+                                       final UserState state) {
+        int index = commandRandom.nextInt(state.playlists.size());
+        state.playlists.set(index, !state.playlists.get(index));
+
+        if (state.publicPlaylists() > 0) {
+            publicOwners.add(user);
+        } else {
+            publicOwners.remove(user);
+        }
+        return node.put("playlistId", index + 1);
+    }
+
+    /**
+     * @param user the chosen normal user
+     * @return The user, or sometimes an artist or a host
+     */
+    private String wrappedUser(final String user) {
+        if (commandRandom.nextInt(PERCENT) >= CREATOR_WRAPPED_PERCENT) {
+            return user;
+        }
+        return (commandRandom.nextBoolean())
+                ? artists.get(commandRandom.nextInt(artists.size()))
+                : hosts.get(commandRandom.nextInt(hosts.size()));
+    }
+
+    /**
+     * Adds a search type and a filter, with values taken from popular files, so that the
+     * search has results. The results are counted the way the engine finds them, and the
+     * selection (then the load or follow) of one of them is queued
+     *
+     * @param node  the search command
+     * @param user  the username
+     * @param state the state of the user
+     * @return The search command
+     */
+    private ObjectNode search(final ObjectNode node, final String user, final UserState state) {
+        String type = SEARCH_TYPES[commandRandom.nextInt(SEARCH_TYPES.length)];
+        List<String> owners = new ArrayList<>(publicOwners);
+        owners.remove(user);
+        if ((type.equals("song") && allSongs.isEmpty())
+                || (type.equals("podcast") && allPodcasts.isEmpty())
+                || (type.equals("playlist") && owners.isEmpty())) {
+            type = "artist";
+        }
+
+        node.put("type", type);
+        ObjectNode filters = node.putObject("filters");
+        List<String> creators = null;
+        int results;
+
+        switch (type) {
+            case "song" -> results = searchSongs(filters);
+            case "podcast" -> {
+                PodcastInput podcast = allPodcasts.get(
+                        podcastPopularity.next() % allPodcasts.size());
+                if (commandRandom.nextBoolean()) {
+                    String prefix = podcast.getName().toLowerCase();
+                    filters.put("name", podcast.getName());
+                    results = count(allPodcasts, other ->
+                            other.getName().toLowerCase().startsWith(prefix));
+                } else {
+                    filters.put("owner", podcast.getOwner());
+                    results = count(allPodcasts, other ->
+                            other.getOwner().equalsIgnoreCase(podcast.getOwner()));
+                }
+            }
+            case "album" -> {
+                String prefix = artists.get(commandRandom.nextInt(artists.size()));
+                filters.put("name", prefix);
+                results = count(artists, artist ->
+                        (artist + " album").toLowerCase().startsWith(prefix.toLowerCase()));
+            }
+            case "playlist" -> {
+                String owner = owners.get(commandRandom.nextInt(owners.size()));
+                filters.put("owner", owner);
+                results = Math.min(RESULTS_MAX, stateOf(owner).publicPlaylists());
+            }
+            case "artist" -> {
+                String prefix = artists.get(commandRandom.nextInt(artists.size()));
+                filters.put("name", prefix);
+                creators = artists.stream().filter(artist -> artist.startsWith(prefix))
+                        .limit(RESULTS_MAX).toList();
+                results = creators.size();
+            }
+            default -> {
+                filters.put("name", "host");
+                creators = hosts.stream().filter(host -> host.startsWith("host"))
+                        .limit(RESULTS_MAX).toList();
+                results = creators.size();
+            }
+        }
+
+        /* Searching clears the player and the selection */
+        state.loadedType = null;
+        state.selectedType = null;
+        state.resultType = type;
+        state.results = results;
+        state.creatorResults = creators;
+
+        if (results > 0) {
+            followUps.add(new String[]{"select", user});
+            if (creators == null) {
+                followUps.add(new String[]{type.equals("playlist") ? "follow" : "load", user});
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Adds a song filter, with the value of a popular song
+     *
+     * @param filters the search filters
+     * @return The number of results
+     */
+    private int searchSongs(final ObjectNode filters) {
+        SongInput song = library.getSongs().isEmpty()
+                ? allSongs.get(0) : library.getSongs().get(songPopularity.next());
+
+        switch (SONG_FILTERS[commandRandom.nextInt(SONG_FILTERS.length)]) {
+            case "name" -> {
+                String prefix = song.getName().substring(0,
+                        Math.min(song.getName().length(), 1 + commandRandom.nextInt(8)));
+                filters.put("name", prefix);
+                return count(allSongs, other ->
+                        other.getName().toLowerCase().startsWith(prefix.toLowerCase()));
+            }
+            case "album" -> {
+                filters.put("album", song.getAlbum());
+                return count(allSongs, other -> other.getAlbum().toLowerCase()
+                        .startsWith(song.getAlbum().toLowerCase()));
+            }
+            case "tags" -> {
+                String tag = song.getTags().get(0);
+                filters.putArray("tags").add(tag);
+                return count(allSongs, other -> other.getTags().contains(tag));
+            }
+            case "lyrics" -> {
+                String word = song.getLyrics().split(" ")[commandRandom.nextInt(LYRICS_WORDS)];
+                filters.put("lyrics", word);
+                return count(allSongs, other -> other.getLyrics().toLowerCase().contains(word));
+            }
+            case "genre" -> {
+                filters.put("genre", song.getGenre());
+                return count(allSongs, other -> other.getGenre().equalsIgnoreCase(song.getGenre()));
+            }
+            case "releaseYear" -> {
+                /* Both bounds include the year itself */
+                boolean before = commandRandom.nextBoolean();
+                int year = song.getReleaseYear();
+                filters.put("releaseYear", ((before) ? "<" : ">") + year);
+                return count(allSongs, other -> (before)
+                        ? other.getReleaseYear() <= year : other.getReleaseYear() >= year);
+            }
+            default -> {
+                filters.put("artist", song.getArtist());
+                return count(allSongs, other ->
+                        other.getArtist().equalsIgnoreCase(song.getArtist()));
+            }
+        }
+    }
+
+    /**
+     * @param items     the searched items
+     * @param condition the search filter
+     * @param <T>       the item type
+     * @return The number of results, up to the maximum shown by the search bar
+     */
+    private static <T> int count(final List<T> items, final Predicate<T> condition) {
+        int results = 0;
+        for (int i = 0; i < items.size() && results < RESULTS_MAX; i++) {
+            if (condition.test(items.get(i))) {
+                results++;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes the library and the commands (setup and workload) as JSON files
+     *
+     * @param libraryFile  the library output file
+     * @param commandsFile the commands output file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void write(final Path libraryFile, final Path commandsFile) throws IOException {
+        if (libraryFile.getParent() != null) {
+            Files.createDirectories(libraryFile.getParent());
+        }
+        mapper.writeValue(libraryFile.toFile(), library);
+
+        try (JsonGenerator generator = mapper.createGenerator(commandsFile.toFile(),
+                JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (ObjectNode node : createSetupCommands()) {
+                generator.writeTree(node);
+            }
+            for (int i = 0; i < config.getCommands(); i++) {
+                generator.writeTree(nextCommand());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Generates a workload into a tests directory, as library/library.json and a command file.
+     * <p>
+     * Arguments (all optional): {@code --out tests/ --name workload.json --seed 42
+     * --songs 1000 --podcasts 20 --users 100 --artists 10 --hosts 4 --commands 10000
+     * --popularity 1.1 --spacing 5 --mix search=10,load=5,status=5}
+     *
+     * @param args the workload parameters
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        WorkloadConfig config = new WorkloadConfig();
+        String out = "tests/";
+        String name = "workload.json";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out" -> out = value;
+                case "--name" -> name = value;
+                case "--seed" -> config.setSeed(Long.parseLong(value));
+                case "--songs" -> config.setSongs(Integer.parseInt(value));
+                case "--podcasts" -> config.setPodcasts(Integer.parseInt(value));
+                case "--users" -> config.setUsers(Integer.parseInt(value));
+                case "--artists" -> config.setArtists(Integer.parseInt(value));
+                case "--hosts" -> config.setHosts(Integer.parseInt(value));
+                case "--commands" -> config.setCommands(Integer.parseInt(value));
+                case "--popularity" -> config.setPopularity(Double.parseDouble(value));
+                case "--spacing" -> config.setSpacing(Integer.parseInt(value));
+                case "--mix" -> config.setMix(parseMix(value));
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        new WorkloadGenerator(config).write(Path.of(out, "library", "library.json"),
+                Path.of(out, name));
+    }
+
+    /**
+     * @param value comma-separated command=weight pairs
+     * @return The command mix
+     */
+    private static Map<String, Integer> parseMix(final String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.split("=");
+            mix.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+
+    /**
+     * The part of the engine state of a user that decides which commands are valid
+     */
+    private static final class UserState {
+        /* Results of the last search, until one is selected */
+        private int results;
+        private String resultType;
+        private List<String> creatorResults;
+
+        /* Type of the selected file, null if there is none */
+        private String selectedType;
+
+        /* Loaded source, null if there is none */
+        private String loadedType;
+        private int loadTime;
+        private int skips;
+        private int forwarded;
+        private boolean paused;
+
+        private boolean premium;
+        /* Creator whose page is open, null on the other pages */
+        private String pageCreator;
+        /* Visibility of the playlists, in creation order (true if public) */
+        private final List<Boolean> playlists = new ArrayList<>();
+
+        /**
+         * Loads the selected file
+         *
+         * @param timestamp the load time
+         */
+        void load(final int timestamp) {
+            loadedType = selectedType;
+            selectedType = null;
+            loadTime = timestamp;
+            skips = 0;
+            forwarded = 0;
+            paused = false;
+        }
+
+        /**
+         * Assumes every track lasts the least possible and ignores pauses and repeats, so the
+         * count is a lower bound. Podcasts may resume from their last episode, so only one
+         * episode is counted for them
+         *
+         * @param timestamp the current time
+         * @param albumSize the number of songs of an album
+         * @return The number of tracks of the loaded source, including the current one, that
+         * surely remain (0 if it surely plays no more)
+         */
+        int tracksLeft(final int timestamp, final int albumSize) {
+            if (loadedType == null) {
+                return 0;
+            }
+
+            int tracks = (loadedType.equals("album")) ? albumSize : 1;
+            int shortest = (loadedType.equals("podcast"))
+                    ? MIN_EPISODE_DURATION : MIN_SONG_DURATION;
+
+            return Math.max(0, tracks - skips - (timestamp - loadTime + forwarded) / shortest);
+        }
+
+        /**
+         * @return The number of public playlists
+         */
+        int publicPlaylists() {
+            return (int) playlists.stream().filter(Boolean::booleanValue).count();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark.workload;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples indexes with Zipf-distributed popularity: the k-th most popular index is chosen
+ * with a probability proportional to 1 / k^exponent. Which index gets which rank is random,
+ * so popularity does not follow creation order.
+ */
+public final class ZipfSampler {
+    private final double[] cumulative;
+    private final int[] ranked;
+    private final Random random;
+
+    /**
+     * @param size     the number of indexes
+     * @param exponent the Zipf exponent, 0 for a uniform distribution
+     * @param random   the random source
+     */
+    public ZipfSampler(final int size, final double exponent, final Random random) {
+        this.random = random;
+        cumulative = new double[size];
+
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+
+        ranked = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = random.nextInt(i + 1);
+            ranked[i] = ranked[j];
+            ranked[j] = i;
+        }
+    }
+
+    /**
+     * @return A random index
+     */
+    public int next() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        rank = (rank < 0) ? -rank - 1 : rank;
+        return ranked[Math.min(rank, ranked.length - 1)];
+    }
+}
@@ -0,0 +1,30 @@
+package databases;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Helpers for files which must survive a crash once written
+ */
+public final class DurableFiles {
+    /**
+     * for coding style
+     */
+    private DurableFiles() {
+    }
+
+    /**
+     * Forces the entries of a directory to disk, so that files created, renamed or deleted in
+     * it stay so after a crash. Syncing a file only covers its contents
+     *
+     * @param directory the directory
+     * @throws IOException in case of exceptions to syncing
+     */
+    public static void syncDirectory(final Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package databases;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates of state shared by all users of a session: ties, likes, follows, listens,
+ * revenues and player scheduling.
+ * <p>
+ * Effects are normally applied at once. While commands run in parallel lanes, each lane
+ * records its effects instead, tagged with the index of the command causing them.
+ * The recordings are then applied in command order, so the shared state (floating point
+ * sums included) ends up exactly as after a sequential run.
+ */
+public final class EffectLog implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* Set only while lanes run, so sequential runs never look up the recording */
+    private transient boolean recording;
+    private final transient ThreadLocal<Recording> recordings = new ThreadLocal<>();
+
+    /**
+     * Effects recorded by one lane, in the order they happened
+     */
+    public static final class Recording {
+        private final List<Runnable> effects = new ArrayList<>();
+        private final List<Integer> commands = new ArrayList<>();
+        private int command;
+
+        /**
+         * @param index the index of the command whose effects are recorded next
+         */
+        public void setCommand(final int index) {
+            command = index;
+        }
+
+        /**
+         * @param effect the effect to be applied later
+         */
+        private void add(final Runnable effect) {
+            effects.add(effect);
+            commands.add(command);
+        }
+    }
+
+    /**
+     * Effects are never pending outside of lanes, so a restored log starts empty
+     *
+     * @return A new effect log
+     */
+    @Serial
+    private Object readResolve() {
+        return new EffectLog();
+    }
+
+    /**
+     * Applies an effect, or records it if the current thread runs a lane
+     *
+     * @param effect the update of shared state
+     */
+    public void apply(final Runnable effect) {
+        Recording current = (recording) ? recordings.get() : null;
+        if (current == null) {
+            effect.run();
+        } else {
+            current.add(effect);
+        }
+    }
+
+    /**
+     * Switches to recording. Must be called before the lanes are started
+     */
+    public void startRecording() {
+        recording = true;
+    }
+
+    /**
+     * Switches back to applying effects at once. Must be called after all lanes finished
+     */
+    public void stopRecording() {
+        recording = false;
+    }
+
+    /**
+     * Starts recording the effects of the current thread
+     *
+     * @return The recording
+     */
+    public Recording record() {
+        Recording lane = new Recording();
+        recordings.set(lane);
+        return lane;
+    }
+
+    /**
+     * Stops recording the effects of the current thread
+     */
+    public void release() {
+        recordings.remove();
+    }
+
+    /**
+     * Applies the effects of all recordings, in command order. The effects of a single
+     * command (which all come from the same lane) keep their order
+     *
+     * @param lanes the recordings of all lanes
+     */
+    public void applyInOrder(final List<Recording> lanes) {
+        int[] next = new int[lanes.size()];
+
+        while (true) {
+            int lane = -1;
+            for (int i = 0; i < lanes.size(); i++) {
+                Recording candidate = lanes.get(i);
+                if (next[i] < candidate.commands.size() && (lane == -1
+                        || candidate.commands.get(next[i])
+                        < lanes.get(lane).commands.get(next[lane]))) {
+                    lane = i;
+                }
+            }
+
+            if (lane == -1) {
+                return;
+            }
+
+            lanes.get(lane).effects.get(next[lane]++).run();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package databases;
+
+import app.admin.Admin;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * All state of one simulation: the library, the users and the song revenues.
+ * <p>
+ * Entities are bound to the session they were created in. Sessions share nothing,
+ * so independent simulations may run side by side in the same process
+ * (each session must only be used by one thread at a time).
+ */
+@Getter
+public final class EngineSession implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Library library;
+    private final UserDatabase userDatabase;
+    private final RevenueLedger revenueLedger;
+    private final Admin admin;
+    /* Updates of state shared between users */
+    private final EffectLog effects = new EffectLog();
+
+    public EngineSession() {
+        library = new Library(this);
+        userDatabase = new UserDatabase(this);
+        revenueLedger = new RevenueLedger();
+        admin = new Admin(this);
+    }
+}
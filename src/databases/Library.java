@@ -1,6 +1,15 @@
 package databases;
 
 import app.audiofiles.collections.Album;
+import app.utils.counter.IntCountMap;
+import app.users.creators.Host;
+import databases.catalog.SongCatalog;
+import databases.index.IdRegistry;
+import databases.index.Leaderboard;
+import databases.index.SongIndex;
+import fileio.input.EpisodeInput;
+import fileio.input.SongInput;
+import fileio.serialization.SymbolTable;
 import fileio.commands.search.SearchCommand;
 import lombok.Getter;
 import app.audiofiles.collections.Playlist;
@@ -8,23 +17,24 @@ import app.audiofiles.collections.Podcast;
 import app.audiofiles.Song;
 import app.utils.constants.searchbar.SearchBarConstants;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The app library. Used to store all app data (users, songs, playlists etc.)
  */
-public final class Library {
-    /* Thread-safe singleton */
-    @Getter
-    private static Library instance;
+public final class Library implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 2L;
 
-    static {
-        synchronized (Library.class) {
-            instance = new Library();
-        }
-    }
+    /* The session owning the library */
+    @Getter
+    private final EngineSession session;
 
     /* Collections */
     private final List<Song> songs = new ArrayList<>();
@@ -33,19 +43,172 @@ public final class Library {
     private final List<Playlist> playlists = new ArrayList<>();
     private final List<Album> albums = new ArrayList<>();
 
-    private Library() {
+    /* Dense ids of the songs and podcast episodes added to the library. A removed song or
+       episode keeps resolving while the listens of some user hold its id */
+    private final IdRegistry<Song> songIds = new IdRegistry<>();
+    private final IdRegistry<EpisodeInput> episodeIds = new IdRegistry<>();
+    /* Number of users whose listens hold each episode id, and the ids of removed episodes */
+    private final IntCountMap episodeListeners = new IntCountMap();
+    private final BitSet removedEpisodeIds = new BitSet();
+
+    /* Column store of the song data, indexed by song id */
+    @Getter
+    private final SongCatalog songCatalog = new SongCatalog();
+    /* Search indexes over songs */
+    private final SongIndex songIndex = new SongIndex(songCatalog);
+
+    /* Rankings, in collection order on equal scores. Albums are also ranked by name */
+    private final Leaderboard<Song> topSongs = new Leaderboard<>(Song::getLikes);
+    private final Leaderboard<Playlist> topPlaylists = new Leaderboard<>(Playlist::getFollowers);
+    private final Leaderboard<Album> topAlbums =
+            new Leaderboard<>(Album::getLikes, (first, second) ->
+                    first.getName().compareTo(second.getName()));
+
+    /* Reverse index from each episode to its podcast */
+    private final Map<EpisodeInput, Podcast> episodePodcasts = new HashMap<>();
+
+    /* First album (in library order) with each name */
+    private final Map<String, Album> albumsByName = new HashMap<>();
+    /* Incremented whenever the albums change, so cached lookups stay valid */
+    @Getter
+    private long albumsVersion;
+
+    Library(final EngineSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Adds the data of a song to the catalog, once the song is accepted in the library
+     *
+     * @param song      the song
+     * @param songInput the song data
+     * @return The id of the song
+     */
+    public int registerSong(final Song song, final SongInput songInput) {
+        songIds.register(song);
+        return songCatalog.add(songInput);
+    }
+
+    /**
+     * @param id the song id
+     * @return The song with the given id, while it is in the library or listened to
+     */
+    public Song getSongById(final int id) {
+        return songIds.get(id);
+    }
+
+    /**
+     * Keeps resolving the id of a song a user listens to for the first time. The registry only
+     * changes for a removed song (played from a playlist), whose slot is set back to the same
+     * song, so lanes may call it
+     *
+     * @param song the song
+     */
+    public void holdSongId(final Song song) {
+        if (song.isDetached()) {
+            songIds.restore(song.getId(), song);
+        }
+    }
+
+    /**
+     * @param song a song a user listens to for the first time
+     */
+    public void addSongListener(final Song song) {
+        songCatalog.addListeners(song.getId(), 1);
+    }
+
+    /**
+     * Drops a listener of a song, releasing the id of a removed song once nobody listened
+     * to it
+     *
+     * @param song a song listened to by a removed user
+     */
+    public void removeSongListener(final Song song) {
+        songCatalog.addListeners(song.getId(), -1);
+        if (song.isDetached() && songCatalog.listenersOf(song.getId()) == 0) {
+            songIds.release(song.getId());
+        }
+    }
+
+    /**
+     * Tombstones the catalog row of a song removed from the library. Its id is released
+     * unless some user listened to it
+     *
+     * @param song the removed song
+     */
+    private void unregisterSong(final Song song) {
+        song.detach();
+        songCatalog.release(song.getId());
+        if (songCatalog.listenersOf(song.getId()) == 0) {
+            songIds.release(song.getId());
+        }
+    }
+
+    /**
+     * @param episode an episode of a podcast accepted in the library
+     * @return The id of the episode
+     */
+    public int registerEpisode(final EpisodeInput episode) {
+        return episodeIds.register(episode);
+    }
+
+    /**
+     * @param id the episode id
+     * @return The episode with the given id, while it is in the library or listened to
+     */
+    public EpisodeInput getEpisodeById(final int id) {
+        return episodeIds.get(id);
+    }
+
+    /**
+     * Keeps resolving the id of an episode a user listens to for the first time. The registry
+     * only changes for an episode of a removed podcast, whose slot is set back to the same
+     * episode, so lanes may call it
+     *
+     * @param podcast the podcast
+     * @param index   the episode index
+     */
+    public void holdEpisodeId(final Podcast podcast, final int index) {
+        if (podcast.isRemoved()) {
+            episodeIds.restore(podcast.getEpisodeId(index), podcast.getEpisodes().get(index));
+        }
+    }
+
+    /**
+     * @param id the id of an episode a user listens to for the first time
+     */
+    public void addEpisodeListener(final int id) {
+        episodeListeners.add(id, 1);
+    }
+
+    /**
+     * Drops a listener of an episode, releasing the id of a removed episode once nobody
+     * listened to it
+     *
+     * @param id the id of an episode listened to by a removed user
+     */
+    public void removeEpisodeListener(final int id) {
+        episodeListeners.add(id, -1);
+        if (removedEpisodeIds.get(id) && episodeListeners.get(id) == 0) {
+            episodeIds.release(id);
+        }
     }
 
     /**
-     * Clears all library data.
-     * <p>
-     * !!! This method should be removed in production !!!
+     * Releases the episode ids of a podcast removed from the library, except the ones some
+     * user listened to
+     *
+     * @param podcast the removed podcast
      */
-    public void clear() {
-        songs.clear();
-        podcasts.clear();
-        playlists.clear();
-        albums.clear();
+    private void unregisterPodcast(final Podcast podcast) {
+        podcast.unregister();
+        for (int i = 0; i < podcast.getEpisodes().size(); i++) {
+            int id = podcast.getEpisodeId(i);
+            removedEpisodeIds.set(id);
+            if (episodeListeners.get(id) == 0) {
+                episodeIds.release(id);
+            }
+        }
     }
 
     /**
@@ -53,9 +216,7 @@ public final class Library {
      * @return All songs with the given genre
      */
     public List<Song> getSongsByGenre(final String genre) {
-        List<Song> result = new ArrayList<>(songs);
-        result.removeIf(song -> !song.getGenre().equalsIgnoreCase(genre));
-        return result;
+        return songIndex.findByGenre(genre);
     }
 
     /**
@@ -63,45 +224,73 @@ public final class Library {
      * @return The found album or null
      */
     public Album getAlbumByName(final String albumName) {
-        return albums.stream().filter(album -> album.getName().equals(albumName))
-                .findAny().orElse(null);
+        return albumsByName.get(albumName);
+    }
+
+    /**
+     * Updates the album name index after an album was removed
+     *
+     * @param album the removed album
+     */
+    private void unindexAlbum(final Album album) {
+        if (albumsByName.get(album.getName()) != album) {
+            return;
+        }
+
+        albumsByName.remove(album.getName());
+        albums.stream().filter(other -> other.getName().equals(album.getName()))
+                .findFirst().ifPresent(other -> albumsByName.put(other.getName(), other));
     }
 
     /**
      * @return The top 5 songs (by likes)
      */
     public List<String> getTop5Songs() {
-        List<Song> sortedSongs = new ArrayList<>(songs);
-        sortedSongs.sort(Comparator.comparing(Song::getLikes).reversed());
-
-        return sortedSongs.subList(
-                0, Math.min(songs.size(), SearchBarConstants.RESULTS_MAX_SIZE)
-        ).stream().map(Song::getName).toList();
+        return topSongs.top(SearchBarConstants.RESULTS_MAX_SIZE).stream()
+                .map(Song::getName).toList();
     }
 
     /**
      * @return The top 5 playlists (by follows)
      */
     public List<String> getTop5Playlists() {
-        List<Playlist> sortedPlaylists = new ArrayList<>(playlists);
-        sortedPlaylists.sort(Comparator.comparing(Playlist::getFollowers).reversed());
-
-        return sortedPlaylists.subList(
-                0, Math.min(playlists.size(), SearchBarConstants.RESULTS_MAX_SIZE)
-        ).stream().map(Playlist::getName).toList();
+        return topPlaylists.top(SearchBarConstants.RESULTS_MAX_SIZE).stream()
+                .map(Playlist::getName).toList();
     }
 
     /**
      * @return The top 5 albums (by total song likes)
      */
     public List<String> getTop5Albums() {
-        List<Album> sortedAlbums = new ArrayList<>(albums);
-        sortedAlbums.sort(Comparator.comparing(Album::getName));
-        sortedAlbums.sort(Comparator.comparing(Album::getLikes).reversed());
+        return topAlbums.top(SearchBarConstants.RESULTS_MAX_SIZE).stream()
+                .map(Album::getName).toList();
+    }
+
+    /**
+     * Moves a song to its new position in the song ranking
+     *
+     * @param song the song whose likes changed
+     */
+    public void updateSongLikes(final Song song) {
+        topSongs.update(song);
+    }
 
-        return sortedAlbums.subList(
-                0, Math.min(albums.size(), SearchBarConstants.RESULTS_MAX_SIZE)
-        ).stream().map(Album::getName).toList();
+    /**
+     * Moves an album to its new position in the album ranking
+     *
+     * @param album the album whose likes changed
+     */
+    public void updateAlbumLikes(final Album album) {
+        topAlbums.update(album);
+    }
+
+    /**
+     * Moves a playlist to its new position in the playlist ranking
+     *
+     * @param playlist the playlist whose followers changed
+     */
+    public void updatePlaylistFollowers(final Playlist playlist) {
+        topPlaylists.update(playlist);
     }
 
     /**
@@ -110,22 +299,24 @@ public final class Library {
      */
     public List<Album> getAlbumsByFilters(final SearchCommand.SearchFilter filter) {
         List<Album> results = new ArrayList<>();
-        UserDatabase.getInstance().getArtists().forEach(artist ->
+        session.getUserDatabase().getArtists().forEach(artist ->
                 results.addAll(artist.getAlbums())
         );
 
+        SymbolTable symbols = SymbolTable.getInstance();
         if (filter.getOwner() != null) {
-            results.removeIf(album -> !album.getOwner().equalsIgnoreCase(filter.getOwner()));
+            results.removeIf(album ->
+                    !symbols.equalsIgnoreCase(album.getOwner(), filter.getOwner()));
         }
 
         if (filter.getDescription() != null) {
-            results.removeIf(album -> !album.getDescription().toLowerCase()
-                    .contains(filter.getDescription().toLowerCase()));
+            String description = filter.getDescription().toLowerCase();
+            results.removeIf(album -> !album.getDescription().toLowerCase().contains(description));
         }
 
         if (filter.getName() != null) {
-            results.removeIf(album -> !album.getName().toLowerCase()
-                    .startsWith(filter.getName().toLowerCase()));
+            String name = symbols.lowerCase(filter.getName());
+            results.removeIf(album -> !symbols.lowerCase(album.getName()).startsWith(name));
         }
 
         return results;
@@ -137,14 +328,16 @@ public final class Library {
      */
     public List<Podcast> getPodcastsByFilters(final SearchCommand.SearchFilter filter) {
         List<Podcast> results = new ArrayList<>(podcasts);
+        SymbolTable symbols = SymbolTable.getInstance();
 
         if (filter.getName() != null) {
-            results.removeIf(podcast -> !podcast.getName().toLowerCase()
-                    .startsWith(filter.getName().toLowerCase()));
+            String name = symbols.lowerCase(filter.getName());
+            results.removeIf(podcast -> !symbols.lowerCase(podcast.getName()).startsWith(name));
         }
 
         if (filter.getOwner() != null) {
-            results.removeIf(podcast -> !podcast.getOwner().equalsIgnoreCase(filter.getOwner()));
+            results.removeIf(podcast ->
+                    !symbols.equalsIgnoreCase(podcast.getOwner(), filter.getOwner()));
         }
 
         return results;
@@ -160,13 +353,15 @@ public final class Library {
         List<Playlist> results = new ArrayList<>(playlists);
         results.removeIf(playlist -> playlist.isPrivate() && !playlist.getOwner().equals(username));
 
+        SymbolTable symbols = SymbolTable.getInstance();
         if (filter.getOwner() != null) {
-            results.removeIf(playlist -> !playlist.getOwner().equalsIgnoreCase(filter.getOwner()));
+            results.removeIf(playlist ->
+                    !symbols.equalsIgnoreCase(playlist.getOwner(), filter.getOwner()));
         }
 
         if (filter.getName() != null) {
-            results.removeIf(playlist -> !playlist.getName().toLowerCase()
-                    .startsWith(filter.getName().toLowerCase()));
+            String name = symbols.lowerCase(filter.getName());
+            results.removeIf(playlist -> !symbols.lowerCase(playlist.getName()).startsWith(name));
         }
 
         return results;
@@ -174,53 +369,20 @@ public final class Library {
 
     /**
      * @param filter search filters
-     * @return The found songs
+     * @return The found songs (at most RESULTS_MAX_SIZE, in library order)
      */
     public List<Song> getSongsByFilters(final SearchCommand.SearchFilter filter) {
-        List<Song> results = new ArrayList<>(songs);
-
-        if (filter.getName() != null) {
-            results.removeIf(song -> !song.getName().toLowerCase()
-                    .startsWith(filter.getName().toLowerCase()));
-        }
-
-        if (filter.getAlbum() != null) {
-            results.removeIf(song -> !song.getAlbum().toLowerCase()
-                    .startsWith(filter.getAlbum().toLowerCase()));
-        }
-
-        if (filter.getTags() != null) {
-            results.removeIf(song -> !song.getTags().containsAll(filter.getTags()));
-        }
-
-        if (filter.getLyrics() != null) {
-            results.removeIf(song ->
-                    !song.getLyrics().toLowerCase().toLowerCase()
-                            .contains(filter.getLyrics().toLowerCase()));
-        }
-
-        if (filter.getGenre() != null) {
-            results.removeIf(song -> !song.getGenre().equalsIgnoreCase(filter.getGenre()));
-        }
-
-        if (filter.getReleaseYear() != null) {
-            /* Negating by changing the sign of the equation */
-            int sign = (filter.getReleaseYear().charAt(0) == '<') ? 1 : -1;
-            results.removeIf(song -> song.getReleaseYear() * sign > filter.getYearAsInt() * sign);
-        }
-
-        if (filter.getArtist() != null) {
-            results.removeIf(song -> !song.getArtist().equalsIgnoreCase(filter.getArtist()));
-        }
-
-        return results;
+        return songIndex.findSongs(filter, SearchBarConstants.RESULTS_MAX_SIZE);
     }
 
     /**
      * @param song playlist to be added
      */
     public void addSong(final Song song) {
+        song.register();
         songs.add(song);
+        songIndex.add(song);
+        topSongs.add(song);
     }
 
     /**
@@ -228,6 +390,7 @@ public final class Library {
      */
     public void addPlaylist(final Playlist playlist) {
         playlists.add(playlist);
+        topPlaylists.add(playlist);
     }
 
     /**
@@ -236,16 +399,24 @@ public final class Library {
      * @param removedPlaylists the list of playlists
      */
     public void removePlaylists(final List<Playlist> removedPlaylists) {
-        UserDatabase.getInstance().removePlaylists(removedPlaylists);
+        session.getUserDatabase().removePlaylists(removedPlaylists);
         playlists.removeAll(removedPlaylists);
+        removedPlaylists.forEach(topPlaylists::remove);
     }
 
     /**
      * @param album album to be added
      */
     public void addAlbum(final Album album) {
+        album.getSongs().forEach(Song::register);
         songs.addAll(album.getSongs());
+        album.getSongs().forEach(songIndex::add);
+        album.getSongs().forEach(topSongs::add);
         albums.add(album);
+        topAlbums.add(album);
+
+        albumsByName.putIfAbsent(album.getName(), album);
+        albumsVersion++;
     }
 
     /**
@@ -254,9 +425,16 @@ public final class Library {
     public void removeAlbum(final Album album) {
         for (Song song : album.getSongs()) {
             songs.remove(song);
+            songIndex.remove(song);
+            topSongs.remove(song);
+            unregisterSong(song);
         }
 
         albums.remove(album);
+        topAlbums.remove(album);
+
+        unindexAlbum(album);
+        albumsVersion++;
     }
 
     /**
@@ -266,18 +444,27 @@ public final class Library {
      */
     public void removeAlbums(final List<Album> removedAlbums) {
         for (Album album : removedAlbums) {
-            UserDatabase.getInstance().removeSongs(album.getSongs());
+            session.getUserDatabase().removeSongs(album.getSongs());
             songs.removeAll(album.getSongs());
+            album.getSongs().forEach(songIndex::remove);
+            album.getSongs().forEach(topSongs::remove);
+            album.getSongs().forEach(this::unregisterSong);
         }
 
         albums.removeAll(removedAlbums);
+        removedAlbums.forEach(topAlbums::remove);
+
+        removedAlbums.forEach(this::unindexAlbum);
+        albumsVersion++;
     }
 
     /**
      * @param podcast podcast to be added
      */
     public void addPodcast(final Podcast podcast) {
+        podcast.register();
         podcasts.add(podcast);
+        podcast.getEpisodes().forEach(episode -> episodePodcasts.put(episode, podcast));
     }
 
     /**
@@ -285,6 +472,8 @@ public final class Library {
      */
     public void removePodcast(final Podcast podcast) {
         podcasts.remove(podcast);
+        podcast.getEpisodes().forEach(episodePodcasts::remove);
+        unregisterPodcast(podcast);
     }
 
     /**
@@ -294,5 +483,24 @@ public final class Library {
      */
     public void removePodcasts(final List<Podcast> removedPodcasts) {
         podcasts.removeAll(removedPodcasts);
+        removedPodcasts.forEach(podcast -> podcast.getEpisodes().forEach(episodePodcasts::remove));
+        removedPodcasts.forEach(this::unregisterPodcast);
+    }
+
+    /**
+     * @param episode the episode (reference)
+     * @return The library podcast containing the episode or null
+     */
+    public Podcast getPodcastOf(final EpisodeInput episode) {
+        return episodePodcasts.get(episode);
+    }
+
+    /**
+     * @param episode the episode (reference)
+     * @return The host of the episode or null
+     */
+    public Host getHostOf(final EpisodeInput episode) {
+        Podcast podcast = episodePodcasts.get(episode);
+        return (podcast != null) ? podcast.getHost() : null;
     }
 }
@@ -0,0 +1,172 @@
+package databases;
+
+import app.audiofiles.Song;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Song revenue ledger. Revenues are merged by (artist, song name) as they are added,
+ * together with the most profitable song of each artist.
+ * <p>
+ * Each song keeps its own running revenue. The revenue of a song name and the total of an
+ * artist are compensated sums (DoubleStream.sum) over the revenues below them, in order of
+ * their first revenue, so they do not depend on how the payments were interleaved.
+ */
+public final class RevenueLedger implements Serializable {
+    public static final String NO_PROFITABLE_SONG = "N/A";
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, ArtistLedger> artists = new HashMap<>();
+
+    RevenueLedger() {
+    }
+
+    /**
+     * The revenue of a song name, over all the songs of the artist with that name
+     */
+    private static final class SongRevenue implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        /* Running revenue of each song with the name, by song id */
+        private final Map<Integer, Double> songs = new LinkedHashMap<>();
+        /* Compensated sum of the song revenues, kept for the ranking */
+        private double revenue;
+
+        /**
+         * @param name the song name
+         */
+        SongRevenue(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param songId the song id
+         * @param value  the value to be added to the revenue of the song
+         */
+        void add(final int songId, final double value) {
+            songs.merge(songId, value, Double::sum);
+            revenue = songs.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+
+        /**
+         * @return The song name
+         */
+        String name() {
+            return name;
+        }
+
+        /**
+         * @return The revenue of all songs with the name
+         */
+        double revenue() {
+            return revenue;
+        }
+
+        /**
+         * @return If the song can be the most profitable one
+         */
+        boolean isProfitable() {
+            return revenue > 0.0;
+        }
+    }
+
+    /**
+     * The revenues of a single artist
+     */
+    private static final class ArtistLedger implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 2L;
+
+        /* In order of their first revenue */
+        private final Map<String, SongRevenue> songs = new LinkedHashMap<>();
+
+        /* Profitable songs, most profitable first (ties broken by name) */
+        private transient NavigableSet<SongRevenue> ranking = createRanking();
+
+        /**
+         * @return An empty ranking of song revenues
+         */
+        private static NavigableSet<SongRevenue> createRanking() {
+            return new TreeSet<>(
+                    Comparator.comparingDouble(SongRevenue::revenue).reversed()
+                            .thenComparing(SongRevenue::name)
+            );
+        }
+
+        /**
+         * Restores the ranking from the song revenues
+         *
+         * @param in the snapshot stream
+         * @throws IOException            in case of exceptions to reading
+         * @throws ClassNotFoundException if a class of the snapshot is missing
+         */
+        @Serial
+        private void readObject(final ObjectInputStream in)
+                throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            ranking = createRanking();
+            songs.values().stream().filter(SongRevenue::isProfitable).forEach(ranking::add);
+        }
+    }
+
+    /**
+     * Adds to the revenue of a song
+     *
+     * @param song  the song
+     * @param value the value to be added
+     */
+    public void addRevenue(final Song song, final double value) {
+        ArtistLedger ledger = artists.computeIfAbsent(song.getArtist(), key -> new ArtistLedger());
+        SongRevenue revenue = ledger.songs.computeIfAbsent(song.getName(), SongRevenue::new);
+
+        /* The ranking orders by revenue, so the entry is moved around the update */
+        if (revenue.isProfitable()) {
+            ledger.ranking.remove(revenue);
+        }
+        revenue.add(song.getId(), value);
+        if (revenue.isProfitable()) {
+            ledger.ranking.add(revenue);
+        }
+    }
+
+    /**
+     * @return The names of all artists with song revenues
+     */
+    public Set<String> getArtists() {
+        return artists.keySet();
+    }
+
+    /**
+     * @param artist the artist name
+     * @return The total song revenue of the artist
+     */
+    public double getSongRevenue(final String artist) {
+        ArtistLedger ledger = artists.get(artist);
+        return (ledger == null) ? 0.0
+                : ledger.songs.values().stream().mapToDouble(SongRevenue::revenue).sum();
+    }
+
+    /**
+     * @param artist the artist name
+     * @return The name of the song with the highest revenue, the first by name in case
+     * of equality, or N/A if no song brought any revenue
+     */
+    public String getMostProfitableSong(final String artist) {
+        ArtistLedger ledger = artists.get(artist);
+        return (ledger == null || ledger.ranking.isEmpty())
+                ? NO_PROFITABLE_SONG : ledger.ranking.first().name();
+    }
+}
@@ -2,51 +2,59 @@ package databases;
 
 import app.audiofiles.Song;
 import app.audiofiles.collections.Playlist;
+import app.mediaplayer.PlayerClock;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.ContentCreator;
 import app.users.creators.Host;
+import app.users.creators.stats.ArtistListens;
 import app.users.tie.TiedUserEntity;
 import app.utils.constants.searchbar.SearchBarConstants;
+import databases.index.Leaderboard;
 import fileio.commands.search.SearchCommand;
+import fileio.input.EpisodeInput;
 import lombok.Getter;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * User database class. Implements user searches
  */
 @Getter
-public final class UserDatabase {
-    /* Thread-safe singleton */
-    @Getter
-    private static UserDatabase instance;
-
-    static {
-        synchronized (UserDatabase.class) {
-            instance = new UserDatabase();
-        }
-    }
+public final class UserDatabase implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* The session owning the users */
+    private final EngineSession session;
 
     private final List<User> users = new ArrayList<>();
     private final List<Artist> artists = new ArrayList<>();
     private final List<Host> hosts = new ArrayList<>();
 
-    private UserDatabase() {
-    }
+    /* Username index shared by all user types. Kept in sync with the lists above */
+    private final Map<String, TiedUserEntity> usernames = new HashMap<>();
 
-    /**
-     * Clears all users from the database
-     * <p>
-     * !!! Method should be removed in production !!!
-     */
-    public void clear() {
-        users.clear();
-        artists.clear();
-        hosts.clear();
+    /* Artists ranked by total album likes, in artist order on equal likes */
+    private final Leaderboard<Artist> topArtists = new Leaderboard<>(Artist::getLikes);
+
+    /* Incremented whenever the users change, so cached lookups stay valid */
+    private long version;
+
+    /* Drives the media players of all normal users */
+    private final PlayerClock playerClock = new PlayerClock();
+
+    /* Song listens aggregated by artist name (the artist does not have to exist) */
+    private final Map<String, ArtistListens> artistListens = new HashMap<>();
+
+    UserDatabase(final EngineSession session) {
+        this.session = session;
     }
 
     /**
@@ -54,22 +62,40 @@ public final class UserDatabase {
      * @return The creator or null
      */
     public ContentCreator getCreatorByName(final String username) {
-        Artist artist = getArtistByName(username);
-        if (artist != null) {
-            return artist;
-        }
-        return getHostByName(username);
+        return (usernames.get(username) instanceof ContentCreator creator) ? creator : null;
+    }
+
+    /**
+     * @param artistName the artist name
+     * @return The aggregated listens of the songs with the given artist name, EMPTY if none
+     * was listened to. Read only
+     */
+    public ArtistListens listensOf(final String artistName) {
+        return artistListens.getOrDefault(artistName, ArtistListens.EMPTY);
     }
 
     /**
-     * Updates the file state of all media players
+     * Adds the listens of a user to a song to the listens of its artist
+     *
+     * @param user     the user
+     * @param song     the song
+     * @param count    the listen count
+     * @param newEntry if the user never listened to the song before
+     */
+    public void addListens(final User user, final Song song, final int count,
+                           final boolean newEntry) {
+        artistListens.computeIfAbsent(song.getArtist(), key -> new ArtistListens())
+                .add(user, song, count, newEntry);
+    }
+
+    /**
+     * Updates the file state of all media players. Only the players whose state
+     * changes until the given time are actually updated.
      *
      * @param timestamp the timestamp
      */
     public void updateAllPlayers(final int timestamp) {
-        for (User user : users) {
-            user.getMediaPlayer().updateStatus(timestamp);
-        }
+        playerClock.advanceTo(timestamp);
     }
 
     /**
@@ -101,11 +127,7 @@ public final class UserDatabase {
      * @return The user entity with the given username
      */
     public TiedUserEntity findUsername(final String username) {
-        TiedUserEntity foundUser = getUserByName(username);
-        if (foundUser == null) {
-            foundUser = getArtistByName(username);
-        }
-        return (foundUser != null) ? foundUser : getHostByName(username);
+        return usernames.get(username);
     }
 
     /**
@@ -113,7 +135,7 @@ public final class UserDatabase {
      * @return If the username is already taken
      */
     public boolean containsUsername(final String username) {
-        return findUsername(username) != null;
+        return usernames.containsKey(username);
     }
 
     /**
@@ -127,11 +149,35 @@ public final class UserDatabase {
             return "can't be deleted.";
         }
 
-        user.untieFrom(Library.getInstance());
+        user.untieFrom(session.getLibrary());
+
+        if (user instanceof User normalUser) {
+            playerClock.unregister(normalUser.getMediaPlayer());
+
+            Library library = session.getLibrary();
+            normalUser.getListenedSongs().forEach((id, count) -> {
+                Song song = library.getSongById(id);
+                artistListens.get(song.getArtist()).remove(normalUser, song, count);
+                library.removeSongListener(song);
+            });
+            normalUser.getListenedEpisodes().forEach((id, count) -> {
+                EpisodeInput episode = library.getEpisodeById(id);
+                Host host = library.getHostOf(episode);
+                if (host != null) {
+                    host.getListens().remove(normalUser, episode);
+                }
+                library.removeEpisodeListener(id);
+            });
+        }
 
         users.remove(user);
-        artists.remove(user);
+        if (user instanceof Artist artist) {
+            artists.remove(artist);
+            topArtists.remove(artist);
+        }
         hosts.remove(user);
+        usernames.remove(user.getName());
+        version++;
 
         return "was successfully deleted.";
     }
@@ -161,12 +207,17 @@ public final class UserDatabase {
      * @return The top 5 artists (by total album likes)
      */
     public List<String> getTop5Artists() {
-        List<Artist> sortedArtists = new ArrayList<>(artists);
-        sortedArtists.sort(Comparator.comparing(Artist::getLikes).reversed());
+        return topArtists.top(SearchBarConstants.RESULTS_MAX_SIZE).stream()
+                .map(Artist::getName).toList();
+    }
 
-        return sortedArtists.subList(
-                0, Math.min(artists.size(), SearchBarConstants.RESULTS_MAX_SIZE)
-        ).stream().map(Artist::getName).toList();
+    /**
+     * Moves an artist to its new position in the artist ranking
+     *
+     * @param artist the artist whose likes changed
+     */
+    public void updateArtistLikes(final Artist artist) {
+        topArtists.update(artist);
     }
 
     /**
@@ -202,9 +253,7 @@ public final class UserDatabase {
      * @return The user or null
      */
     public User getUserByName(final String username) {
-        return users.stream().filter(user -> user.getName().equals(username))
-                .findAny()
-                .orElse(null);
+        return (usernames.get(username) instanceof User user) ? user : null;
     }
 
     /**
@@ -212,9 +261,7 @@ public final class UserDatabase {
      * @return The artist or null
      */
     public Artist getArtistByName(final String username) {
-        return artists.stream().filter(artist -> artist.getName().equals(username))
-                .findAny()
-                .orElse(null);
+        return (usernames.get(username) instanceof Artist artist) ? artist : null;
     }
 
     /**
@@ -222,9 +269,7 @@ public final class UserDatabase {
      * @return The host or null
      */
     public Host getHostByName(final String username) {
-        return hosts.stream().filter(host -> host.getName().equals(username))
-                .findAny()
-                .orElse(null);
+        return (usernames.get(username) instanceof Host host) ? host : null;
     }
 
     /**
@@ -232,6 +277,9 @@ public final class UserDatabase {
      */
     public void addUser(final User user) {
         users.add(user);
+        usernames.put(user.getName(), user);
+        version++;
+        playerClock.register(user.getMediaPlayer());
     }
 
     /**
@@ -239,6 +287,9 @@ public final class UserDatabase {
      */
     public void addArtist(final Artist artist) {
         artists.add(artist);
+        topArtists.add(artist);
+        usernames.put(artist.getName(), artist);
+        version++;
     }
 
     /**
@@ -246,5 +297,7 @@ public final class UserDatabase {
      */
     public void addHost(final Host host) {
         hosts.add(host);
+        usernames.put(host.getName(), host);
+        version++;
     }
 }
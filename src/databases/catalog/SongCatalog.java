@@ -0,0 +1,339 @@
+package databases.catalog;
+
+import databases.index.SongIndex;
+import fileio.input.SongInput;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Column store for song data, indexed by song id.
+ * <p>
+ * Numbers are kept in primitive columns. Genres, artists and albums are dictionary-encoded,
+ * with a second code for the case-folded genre and artist, so that case-insensitive
+ * comparisons are int comparisons. Tags are kept as arrays of tag codes, in input order.
+ * Song names and lyrics are kept as references, so the catalog holds all the song data and
+ * songs are only handles over their id.
+ * <p>
+ * Ids are never given again. When a song leaves the library its row is tombstoned: the
+ * references are dropped and the song keeps its own copy of the data.
+ */
+public final class SongCatalog implements Serializable {
+    private static final int INITIAL_CAPACITY = 64;
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    private int size;
+
+    /* Primitive columns */
+    private int[] durations = new int[INITIAL_CAPACITY];
+    private int[] years = new int[INITIAL_CAPACITY];
+    private int[] likes = new int[INITIAL_CAPACITY];
+    /* Number of users whose listens hold the song id */
+    private int[] listeners = new int[INITIAL_CAPACITY];
+
+    /* Dictionary-encoded columns */
+    private int[] genres = new int[INITIAL_CAPACITY];
+    private int[] foldedGenres = new int[INITIAL_CAPACITY];
+    private int[] artists = new int[INITIAL_CAPACITY];
+    private int[] foldedArtists = new int[INITIAL_CAPACITY];
+    private int[] albums = new int[INITIAL_CAPACITY];
+    private int[][] tags = new int[INITIAL_CAPACITY][];
+
+    /* Reference columns */
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] lyrics = new String[INITIAL_CAPACITY];
+
+    private final StringDictionary names = new StringDictionary();
+    private final StringDictionary foldedNames = new StringDictionary();
+    private final StringDictionary tagNames = new StringDictionary();
+
+    /**
+     * Removes all songs. Ids are given again from 0
+     */
+    public void clear() {
+        size = 0;
+        Arrays.fill(tags, null);
+        Arrays.fill(titles, null);
+        Arrays.fill(lyrics, null);
+        names.clear();
+        foldedNames.clear();
+        tagNames.clear();
+    }
+
+    /**
+     * Doubles the capacity of all columns
+     */
+    private void grow() {
+        int capacity = durations.length * 2;
+        durations = Arrays.copyOf(durations, capacity);
+        years = Arrays.copyOf(years, capacity);
+        likes = Arrays.copyOf(likes, capacity);
+        listeners = Arrays.copyOf(listeners, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        foldedGenres = Arrays.copyOf(foldedGenres, capacity);
+        artists = Arrays.copyOf(artists, capacity);
+        foldedArtists = Arrays.copyOf(foldedArtists, capacity);
+        albums = Arrays.copyOf(albums, capacity);
+        tags = Arrays.copyOf(tags, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        lyrics = Arrays.copyOf(lyrics, capacity);
+    }
+
+    /**
+     * Appends a song, with no likes
+     *
+     * @param songInput the song data
+     * @return The id of the song
+     */
+    public int add(final SongInput songInput) {
+        if (size == durations.length) {
+            grow();
+        }
+
+        int id = size++;
+        durations[id] = songInput.getDuration();
+        years[id] = songInput.getReleaseYear();
+        likes[id] = 0;
+        listeners[id] = 0;
+
+        genres[id] = names.encode(songInput.getGenre());
+        foldedGenres[id] = foldedNames.encode(SongIndex.foldCase(songInput.getGenre()));
+        artists[id] = names.encode(songInput.getArtist());
+        foldedArtists[id] = foldedNames.encode(SongIndex.foldCase(songInput.getArtist()));
+        albums[id] = names.encode(songInput.getAlbum());
+
+        List<String> songTags = songInput.getTags();
+        tags[id] = new int[songTags.size()];
+        for (int i = 0; i < songTags.size(); i++) {
+            tags[id][i] = tagNames.encode(songTags.get(i));
+        }
+
+        titles[id] = songInput.getName();
+        lyrics[id] = songInput.getLyrics();
+
+        return id;
+    }
+
+    /**
+     * @param id the song id
+     * @return A copy of the song data
+     */
+    public SongInput inputOf(final int id) {
+        SongInput songInput = new SongInput();
+        songInput.setName(titles[id]);
+        songInput.setDuration(durations[id]);
+        songInput.setAlbum(albumOf(id));
+        songInput.setTags(new ArrayList<>(tagsOf(id)));
+        songInput.setLyrics(lyrics[id]);
+        songInput.setGenre(genreOf(id));
+        songInput.setReleaseYear(years[id]);
+        songInput.setArtist(artistOf(id));
+        return songInput;
+    }
+
+    /**
+     * Tombstones a song: drops the references of its row. The id is not given again
+     *
+     * @param id the song id
+     */
+    public void release(final int id) {
+        tags[id] = null;
+        titles[id] = null;
+        lyrics[id] = null;
+    }
+
+    /**
+     * @param id the song id
+     * @return The name of the song
+     */
+    public String nameOf(final int id) {
+        return titles[id];
+    }
+
+    /**
+     * @param id the song id
+     * @return The lyrics of the song
+     */
+    public String lyricsOf(final int id) {
+        return lyrics[id];
+    }
+
+    /**
+     * @param id the song id
+     * @return The duration of the song
+     */
+    public int durationOf(final int id) {
+        return durations[id];
+    }
+
+    /**
+     * @param id the song id
+     * @return The release year of the song
+     */
+    public int yearOf(final int id) {
+        return years[id];
+    }
+
+    /**
+     * @param id the song id
+     * @return The likes of the song
+     */
+    public int likesOf(final int id) {
+        return likes[id];
+    }
+
+    /**
+     * @param id    the song id
+     * @param delta the change in likes
+     */
+    public void addLikes(final int id, final int delta) {
+        likes[id] += delta;
+    }
+
+    /**
+     * @param id the song id
+     * @return The number of users whose listens hold the song id
+     */
+    public int listenersOf(final int id) {
+        return listeners[id];
+    }
+
+    /**
+     * @param id    the song id
+     * @param delta the change in listeners
+     */
+    public void addListeners(final int id, final int delta) {
+        listeners[id] += delta;
+    }
+
+    /**
+     * @param id the song id
+     * @return The genre of the song
+     */
+    public String genreOf(final int id) {
+        return names.decode(genres[id]);
+    }
+
+    /**
+     * @param id the song id
+     * @return The artist of the song
+     */
+    public String artistOf(final int id) {
+        return names.decode(artists[id]);
+    }
+
+    /**
+     * @param id the song id
+     * @return The album of the song
+     */
+    public String albumOf(final int id) {
+        return names.decode(albums[id]);
+    }
+
+    /**
+     * @param id the song id
+     * @return The tags of the song, in input order (duplicates included), as a read-only view
+     * decoding the tag codes on access
+     */
+    public List<String> tagsOf(final int id) {
+        int[] codes = tags[id];
+        return new AbstractList<>() {
+            @Override
+            public String get(final int index) {
+                return tagNames.decode(codes[index]);
+            }
+
+            @Override
+            public int size() {
+                return codes.length;
+            }
+        };
+    }
+
+    /**
+     * @param value the genre or artist name
+     * @return The code of its case-folded form, NO_CODE if no song has it
+     */
+    public int foldedCodeOf(final String value) {
+        return foldedNames.codeOf(SongIndex.foldCase(value));
+    }
+
+    /**
+     * @param id         the song id
+     * @param foldedCode the case-folded genre code
+     * @return If the song has the genre (case-insensitive)
+     */
+    public boolean hasGenre(final int id, final int foldedCode) {
+        return foldedGenres[id] == foldedCode;
+    }
+
+    /**
+     * @param id         the song id
+     * @param foldedCode the case-folded artist code
+     * @return If the song has the artist (case-insensitive)
+     */
+    public boolean hasArtist(final int id, final int foldedCode) {
+        return foldedArtists[id] == foldedCode;
+    }
+
+    /**
+     * @param tagList the tags
+     * @return The bitset of the tag codes or null if some tag is not on any song
+     */
+    public BitSet encodeTags(final List<String> tagList) {
+        BitSet result = new BitSet();
+        for (String tag : tagList) {
+            int code = tagNames.codeOf(tag);
+            if (code == StringDictionary.NO_CODE) {
+                return null;
+            }
+            result.set(code);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param id      the song id
+     * @param tagBits the tag codes
+     * @return If the song has all the tags
+     */
+    public boolean hasTags(final int id, final BitSet tagBits) {
+        int[] songTags = tags[id];
+        for (int code = tagBits.nextSetBit(0); code >= 0; code = tagBits.nextSetBit(code + 1)) {
+            if (!contains(songTags, code)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param codes the tag codes of a song
+     * @param code  a tag code
+     * @return If the song has the tag (songs have few tags, so a scan is enough)
+     */
+    private static boolean contains(final int[] codes, final int code) {
+        for (int songCode : codes) {
+            if (songCode == code) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The number of songs
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+package databases.catalog;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for repeated strings. Each distinct string gets a dense int code.
+ */
+public final class StringDictionary implements Serializable {
+    public static final int NO_CODE = -1;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Removes all strings
+     */
+    public void clear() {
+        codes.clear();
+        values.clear();
+    }
+
+    /**
+     * @param value the string
+     * @return The code of the string, a new one if the string was not encoded yet
+     */
+    public int encode(final String value) {
+        return codes.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    /**
+     * @param value the string
+     * @return The code of the string or NO_CODE if it was never encoded
+     */
+    public int codeOf(final String value) {
+        return codes.getOrDefault(value, NO_CODE);
+    }
+
+    /**
+     * @param code the code
+     * @return The string with the given code
+     */
+    public String decode(final int code) {
+        return values.get(code);
+    }
+}
@@ -0,0 +1,72 @@
+package databases.index;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns dense int ids (0, 1, 2...) to items in registration order,
+ * so that per-item data can be kept in primitive arrays and maps.
+ * <p>
+ * Ids are never given again, so an item can be released (no longer resolved, letting it be
+ * collected) and restored under the same id later.
+ *
+ * @param <T> the item type
+ */
+public final class IdRegistry<T> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> items = new ArrayList<>();
+
+    /**
+     * Forgets all items. Ids are given again from 0
+     */
+    public void clear() {
+        items.clear();
+    }
+
+    /**
+     * @param item the item
+     * @return The id of the item
+     */
+    public int register(final T item) {
+        items.add(item);
+        return items.size() - 1;
+    }
+
+    /**
+     * @param id the id
+     * @return The item with the given id or null if it was released
+     */
+    public T get(final int id) {
+        return items.get(id);
+    }
+
+    /**
+     * Stops resolving an id. The id is not given again
+     *
+     * @param id the id
+     */
+    public void release(final int id) {
+        items.set(id, null);
+    }
+
+    /**
+     * Resolves a released id again
+     *
+     * @param id   the id
+     * @param item the item which was registered with the id
+     */
+    public void restore(final int id, final T item) {
+        items.set(id, item);
+    }
+
+    /**
+     * @return The number of registered items
+     */
+    public int size() {
+        return items.size();
+    }
+}
@@ -0,0 +1,163 @@
+package databases.index;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ranking of a collection, kept ordered as scores change.
+ * <p>
+ * Items are ordered by score (descending), then by the given tie-breaker and finally
+ * by insertion order, which matches a stable sort over the collection in library order.
+ * The owner of the collection must call update whenever the score of an item changes.
+ *
+ * @param <T> the ranked item type
+ */
+public final class Leaderboard<T> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Score<T> score;
+    private final TieBreaker<T> tieBreaker;
+    /* Rebuilt from the entries when restored */
+    private transient NavigableSet<Entry<T>> ranking;
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private long nextSequence;
+
+    /**
+     * The score of an item. Serializable, so that rankings are part of snapshots
+     *
+     * @param <T> the ranked item type
+     */
+    public interface Score<T> extends ToIntFunction<T>, Serializable {
+    }
+
+    /**
+     * The order of items with the same score. Serializable, so that rankings are part
+     * of snapshots
+     *
+     * @param <T> the ranked item type
+     */
+    public interface TieBreaker<T> extends Comparator<T>, Serializable {
+    }
+
+    /**
+     * @param score      the score of an item
+     * @param tieBreaker the order of items with the same score
+     */
+    public Leaderboard(final Score<T> score, final TieBreaker<T> tieBreaker) {
+        this.score = score;
+        this.tieBreaker = tieBreaker;
+        ranking = createRanking();
+    }
+
+    /**
+     * Ranks items with the same score by insertion order only
+     *
+     * @param score the score of an item
+     */
+    public Leaderboard(final Score<T> score) {
+        this(score, (first, second) -> 0);
+    }
+
+    /**
+     * @return An empty ranking, in leaderboard order
+     */
+    private NavigableSet<Entry<T>> createRanking() {
+        return new TreeSet<>(((Comparator<Entry<T>>) (first, second) ->
+                Integer.compare(second.score(), first.score()))
+                .thenComparing(Entry::item, tieBreaker)
+                .thenComparingLong(Entry::sequence));
+    }
+
+    /**
+     * Restores the ranking from the entries
+     *
+     * @param in the snapshot stream
+     * @throws IOException            in case of exceptions to reading
+     * @throws ClassNotFoundException if a class of the snapshot is missing
+     */
+    @Serial
+    private void readObject(final ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ranking = createRanking();
+        ranking.addAll(entries.values());
+    }
+
+    /**
+     * Clears the ranking
+     */
+    public void clear() {
+        ranking.clear();
+        entries.clear();
+        nextSequence = 0;
+    }
+
+    /**
+     * @param item the item to be ranked, after all current items with the same score
+     */
+    public void add(final T item) {
+        Entry<T> entry = new Entry<>(item, score.applyAsInt(item), nextSequence++);
+        entries.put(item, entry);
+        ranking.add(entry);
+    }
+
+    /**
+     * @param item the item to be removed. Items that are not ranked are ignored
+     */
+    public void remove(final T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            ranking.remove(entry);
+        }
+    }
+
+    /**
+     * Moves an item to the position of its current score
+     *
+     * @param item the item whose score changed. Items that are not ranked are ignored
+     */
+    public void update(final T item) {
+        Entry<T> entry = entries.get(item);
+        int newScore = score.applyAsInt(item);
+        if (entry == null || entry.score() == newScore) {
+            return;
+        }
+
+        ranking.remove(entry);
+        entry = new Entry<>(item, newScore, entry.sequence());
+        entries.put(item, entry);
+        ranking.add(entry);
+    }
+
+    /**
+     * @param limit the maximum number of items
+     * @return The best ranked items
+     */
+    public List<T> top(final int limit) {
+        List<T> results = new ArrayList<>(limit);
+        Iterator<Entry<T>> iterator = ranking.iterator();
+        while (iterator.hasNext() && results.size() < limit) {
+            results.add(iterator.next().item());
+        }
+
+        return results;
+    }
+
+    /**
+     * Ranked item with the score it was ranked by
+     */
+    private record Entry<T>(T item, int score, long sequence) implements Serializable {
+    }
+}
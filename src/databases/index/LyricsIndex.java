@@ -0,0 +1,119 @@
+package databases.index;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Trigram inverted index over the lower case song lyrics.
+ * <p>
+ * A lyrics search is answered by intersecting the posting lists of all trigrams of the
+ * searched text. The result is only a candidate set: every candidate must still be checked
+ * with contains, since having all trigrams does not guarantee the whole text appears.
+ * <p>
+ * The lyrics themselves are not kept: only the few surviving candidates are lower cased,
+ * when they are checked.
+ */
+public final class LyricsIndex implements Serializable {
+    private static final int GRAM_LENGTH = 3;
+    private static final int CHAR_BITS = 16;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Long, NavigableSet<Integer>> postings = new HashMap<>();
+
+    /**
+     * Clears the index
+     */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * @param id         the song id
+     * @param songLyrics the song lyrics
+     */
+    public void add(final int id, final String songLyrics) {
+        for (long gram : trigramsOf(songLyrics.toLowerCase())) {
+            postings.computeIfAbsent(gram, key -> new TreeSet<>()).add(id);
+        }
+    }
+
+    /**
+     * @param id         the song id
+     * @param songLyrics the song lyrics, as they were added
+     */
+    public void remove(final int id, final String songLyrics) {
+        for (long gram : trigramsOf(songLyrics.toLowerCase())) {
+            NavigableSet<Integer> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * @param songLyrics the song lyrics
+     * @param lowerCase  the lower case text
+     * @return If the lyrics contain the text, ignoring case
+     */
+    public static boolean contains(final String songLyrics, final String lowerCase) {
+        return songLyrics.toLowerCase().contains(lowerCase);
+    }
+
+    /**
+     * Intersects the posting lists of the trigrams of the given text
+     *
+     * @param lowerCase the lower case text
+     * @return The candidate song ids or null if the text is too short to use the index
+     */
+    public NavigableSet<Integer> candidates(final String lowerCase) {
+        if (lowerCase.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        List<NavigableSet<Integer>> lists = new ArrayList<>();
+        for (long gram : trigramsOf(lowerCase)) {
+            NavigableSet<Integer> ids = postings.get(gram);
+            if (ids == null) {
+                return new TreeSet<>();
+            }
+            lists.add(ids);
+        }
+
+        /* Start from the shortest posting list */
+        lists.sort(Comparator.comparingInt(NavigableSet::size));
+
+        NavigableSet<Integer> result = new TreeSet<>();
+        for (Integer id : lists.get(0)) {
+            if (lists.stream().skip(1).allMatch(ids -> ids.contains(id))) {
+                result.add(id);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param text the text
+     * @return The distinct trigrams of the text, packed as longs
+     */
+    private static Set<Long> trigramsOf(final String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << (2 * CHAR_BITS))
+                    | ((long) text.charAt(i + 1) << CHAR_BITS)
+                    | text.charAt(i + 2));
+        }
+
+        return grams;
+    }
+}
@@ -0,0 +1,429 @@
+package databases.index;
+
+import app.audiofiles.Song;
+import databases.catalog.SongCatalog;
+import databases.catalog.StringDictionary;
+import fileio.serialization.SymbolTable;
+import fileio.commands.search.SearchCommand;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Secondary indexes over the library songs, used for song searches.
+ * <p>
+ * Each song gets an insertion id when added, so that results keep the library order.
+ * A search walks the candidates of its most selective filter and checks the others
+ * on each candidate against the song catalog columns, stopping as soon as enough
+ * results were found.
+ */
+public final class SongIndex implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final SongCatalog catalog;
+
+    private int nextId;
+    private final Map<Song, Integer> ids = new HashMap<>();
+    private final NavigableMap<Integer, Song> songsById = new TreeMap<>();
+
+    /* Sorted indexes (prefix searches), keyed by the lower case value */
+    private final NavigableMap<String, NavigableSet<Integer>> names = new TreeMap<>();
+    private final NavigableMap<String, NavigableSet<Integer>> albums = new TreeMap<>();
+
+    /* Hash indexes (case-insensitive equality), keyed by the case-folded value */
+    private final Map<String, NavigableSet<Integer>> genres = new HashMap<>();
+    private final Map<String, NavigableSet<Integer>> artists = new HashMap<>();
+
+    /* Inverted tag index and release year range index */
+    private final Map<String, NavigableSet<Integer>> tags = new HashMap<>();
+    private final NavigableMap<Integer, NavigableSet<Integer>> years = new TreeMap<>();
+
+    /* Full-text index for the lyrics filter */
+    private final LyricsIndex lyrics = new LyricsIndex();
+
+    /**
+     * @param catalog the catalog holding the data of the indexed songs
+     */
+    public SongIndex(final SongCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Folds the case of a string the same way String.equalsIgnoreCase compares characters
+     *
+     * @param value the string
+     * @return The case-folded string, cached for interned strings
+     */
+    public static String foldCase(final String value) {
+        return SymbolTable.getInstance().foldCase(value);
+    }
+
+    /**
+     * @param value the string
+     * @return The lower case string, cached for interned strings
+     */
+    private static String lowerCase(final String value) {
+        return SymbolTable.getInstance().lowerCase(value);
+    }
+
+    /**
+     * Clears all indexes
+     */
+    public void clear() {
+        nextId = 0;
+        ids.clear();
+        songsById.clear();
+        names.clear();
+        albums.clear();
+        genres.clear();
+        artists.clear();
+        tags.clear();
+        years.clear();
+        lyrics.clear();
+    }
+
+    /**
+     * @param song the song to be indexed
+     */
+    public void add(final Song song) {
+        int id = nextId++;
+        ids.put(song, id);
+        songsById.put(id, song);
+
+        addTo(names, lowerCase(song.getName()), id);
+        addTo(albums, lowerCase(song.getAlbum()), id);
+        addTo(genres, foldCase(song.getGenre()), id);
+        addTo(artists, foldCase(song.getArtist()), id);
+        song.getTags().forEach(tag -> addTo(tags, tag, id));
+        addTo(years, song.getReleaseYear(), id);
+        lyrics.add(id, song.getLyrics());
+    }
+
+    /**
+     * @param song the song to be removed from the indexes
+     */
+    public void remove(final Song song) {
+        Integer id = ids.remove(song);
+        if (id == null) {
+            return;
+        }
+
+        songsById.remove(id);
+
+        removeFrom(names, lowerCase(song.getName()), id);
+        removeFrom(albums, lowerCase(song.getAlbum()), id);
+        removeFrom(genres, foldCase(song.getGenre()), id);
+        removeFrom(artists, foldCase(song.getArtist()), id);
+        song.getTags().forEach(tag -> removeFrom(tags, tag, id));
+        removeFrom(years, song.getReleaseYear(), id);
+        lyrics.remove(id, song.getLyrics());
+    }
+
+    /**
+     * @param genre the genre
+     * @return All songs with the given genre (case-insensitive), in library order
+     */
+    public List<Song> findByGenre(final String genre) {
+        List<Song> results = new ArrayList<>();
+        for (Integer id : genres.getOrDefault(foldCase(genre), Collections.emptyNavigableSet())) {
+            results.add(songsById.get(id));
+        }
+
+        return results;
+    }
+
+    /**
+     * Searches the indexed songs
+     *
+     * @param filter the search filters
+     * @param limit  the maximum number of results
+     * @return The first songs (in library order) matching all filters
+     */
+    public List<Song> findSongs(final SearchCommand.SearchFilter filter, final int limit) {
+        SongQuery query = new SongQuery(filter, catalog);
+        List<Song> results = new ArrayList<>();
+
+        Collection<NavigableSet<Integer>> candidates = selectCandidates(query);
+        if (candidates == null) {
+            return results;
+        }
+
+        Iterator<Integer> iterator = (candidates.isEmpty())
+                ? songsById.keySet().iterator() : ascending(candidates);
+        while (iterator.hasNext() && results.size() < limit) {
+            int id = iterator.next();
+            Song song = songsById.get(id);
+            if (query.matches(song)
+                    && (query.lyrics == null || LyricsIndex.contains(song.getLyrics(), query.lyrics))) {
+                results.add(song);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Chooses the indexed filter with the fewest candidates
+     *
+     * @param query the search query
+     * @return The id sets of the chosen filter, an empty collection if no filter is indexed
+     * or null if some filter has no candidates at all
+     */
+    private Collection<NavigableSet<Integer>> selectCandidates(final SongQuery query) {
+        List<Collection<NavigableSet<Integer>>> sources = new ArrayList<>();
+
+        if (query.name != null) {
+            sources.add(prefixRange(names, query.name).values());
+        }
+        if (query.album != null) {
+            sources.add(prefixRange(albums, query.album).values());
+        }
+        if (query.tagList != null) {
+            query.tagList.forEach(tag -> sources.add(bucket(tags, tag)));
+        }
+        if (query.genre != null) {
+            sources.add(bucket(genres, foldCase(query.genre)));
+        }
+        if (query.artist != null) {
+            sources.add(bucket(artists, foldCase(query.artist)));
+        }
+        if (query.lyrics != null) {
+            NavigableSet<Integer> ids = lyrics.candidates(query.lyrics);
+            if (ids != null) {
+                sources.add(List.of(ids));
+            }
+        }
+        if (query.releaseYear != null) {
+            sources.add(((query.yearBefore)
+                    ? years.headMap(query.releaseYear, true)
+                    : years.tailMap(query.releaseYear, true)).values());
+        }
+
+        Collection<NavigableSet<Integer>> best = Collections.emptyList();
+        int bestSize = Integer.MAX_VALUE;
+        for (Collection<NavigableSet<Integer>> source : sources) {
+            int size = countUpTo(source, bestSize);
+            if (size == 0) {
+                return null;
+            }
+            if (size < bestSize) {
+                best = source;
+                bestSize = size;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @param index the hash index
+     * @param key   the key
+     * @return A single-bucket source (empty if the key is missing)
+     */
+    private static Collection<NavigableSet<Integer>> bucket(
+            final Map<String, NavigableSet<Integer>> index, final String key) {
+        NavigableSet<Integer> ids = index.get(key);
+        return (ids == null) ? Collections.emptyList() : List.of(ids);
+    }
+
+    /**
+     * Counts the ids of a candidate source, stopping once the bound is reached
+     *
+     * @param source the id sets
+     * @param bound  the count bound
+     * @return The number of ids, at most bound
+     */
+    private static int countUpTo(final Collection<NavigableSet<Integer>> source, final int bound) {
+        int count = 0;
+        for (NavigableSet<Integer> ids : source) {
+            count += ids.size();
+            if (count >= bound) {
+                return bound;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param index  a sorted string index
+     * @param prefix the prefix
+     * @return The part of the index whose keys start with the given prefix
+     */
+    private static <V> NavigableMap<String, V> prefixRange(final NavigableMap<String, V> index,
+                                                           final String prefix) {
+        /* The first string greater than all strings starting with the prefix */
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+
+        if (end == 0) {
+            return index.tailMap(prefix, true);
+        }
+
+        String upperBound = prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+        return index.subMap(prefix, true, upperBound, false);
+    }
+
+    /**
+     * @param buckets disjoint id sets
+     * @return An iterator over all ids, in ascending order
+     */
+    private static Iterator<Integer> ascending(final Collection<NavigableSet<Integer>> buckets) {
+        if (buckets.size() == 1) {
+            return buckets.iterator().next().iterator();
+        }
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparingInt(Cursor::current));
+        for (NavigableSet<Integer> ids : buckets) {
+            Cursor cursor = new Cursor(ids.iterator());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Integer next() {
+                Cursor cursor = queue.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+
+                int id = cursor.current();
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+                return id;
+            }
+        };
+    }
+
+    /**
+     * Adds an id to the bucket of the given key
+     */
+    private static <K> void addTo(final Map<K, NavigableSet<Integer>> index, final K key,
+                                  final int id) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+    }
+
+    /**
+     * Removes an id from the bucket of the given key. Empty buckets are dropped.
+     */
+    private static <K> void removeFrom(final Map<K, NavigableSet<Integer>> index, final K key,
+                                       final int id) {
+        NavigableSet<Integer> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Iterator wrapper that remembers its current element
+     */
+    private static final class Cursor {
+        private final Iterator<Integer> iterator;
+        private int current;
+
+        Cursor(final Iterator<Integer> iterator) {
+            this.iterator = iterator;
+        }
+
+        int current() {
+            return current;
+        }
+
+        /**
+         * @return If a new current element was read
+         */
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+
+    /**
+     * Search filters prepared once per search. Matching keeps the original filter semantics.
+     * Tags, genre and artist are encoded once, then compared with the catalog codes.
+     * The lyrics filter is checked against the lyrics index.
+     */
+    private static final class SongQuery {
+        private final SongCatalog catalog;
+        private final String name;
+        private final String album;
+        private final List<String> tagList;
+        private final BitSet tags;
+        private final String lyrics;
+        private final String genre;
+        private final int genreCode;
+        private final String artist;
+        private final int artistCode;
+        private final Integer releaseYear;
+        private final boolean yearBefore;
+
+        SongQuery(final SearchCommand.SearchFilter filter, final SongCatalog catalog) {
+            this.catalog = catalog;
+            name = (filter.getName() != null) ? lowerCase(filter.getName()) : null;
+            album = (filter.getAlbum() != null) ? lowerCase(filter.getAlbum()) : null;
+            tagList = filter.getTags();
+            tags = (tagList != null) ? catalog.encodeTags(tagList) : null;
+            lyrics = (filter.getLyrics() != null) ? filter.getLyrics().toLowerCase() : null;
+            genre = filter.getGenre();
+            genreCode = (genre != null) ? catalog.foldedCodeOf(genre) : StringDictionary.NO_CODE;
+            artist = filter.getArtist();
+            artistCode = (artist != null) ? catalog.foldedCodeOf(artist) : StringDictionary.NO_CODE;
+            releaseYear = (filter.getReleaseYear() != null) ? filter.getYearAsInt() : null;
+            yearBefore = releaseYear != null && filter.getReleaseYear().charAt(0) == '<';
+        }
+
+        /**
+         * @param song the song
+         * @return If the song passes all filters
+         */
+        boolean matches(final Song song) {
+            int id = song.getId();
+            if (name != null && !lowerCase(song.getName()).startsWith(name)) {
+                return false;
+            }
+            if (album != null && !lowerCase(catalog.albumOf(id)).startsWith(album)) {
+                return false;
+            }
+            /* A tag no song has was encoded as null */
+            if (tagList != null && (tags == null || !catalog.hasTags(id, tags))) {
+                return false;
+            }
+            if (genre != null && !catalog.hasGenre(id, genreCode)) {
+                return false;
+            }
+            if (releaseYear != null && ((yearBefore)
+                    ? catalog.yearOf(id) > releaseYear : catalog.yearOf(id) < releaseYear)) {
+                return false;
+            }
+            return artist == null || catalog.hasArtist(id, artistCode);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package databases.journal;
+
+import databases.DurableFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of the commands accepted by a session.
+ * <p>
+ * Commands are numbered from 1 and appended to segment files named after the number of their
+ * first command. Each record holds its length, a checksum, the timestamp the command ran at
+ * and the command itself. A record torn by a crash fails its checksum and ends the journal.
+ * <p>
+ * Appends only copy the record to memory. A flusher thread writes everything appended so far
+ * and forces it to disk with a single sync (group commit); callers wait for their command to
+ * be durable before answering it. Segments are rotated once they outgrow the segment size,
+ * so that the segments covered by a snapshot can be deleted. The journal directory is synced
+ * whenever a segment is created, so a crash cannot lose a segment holding durable commands.
+ * <p>
+ * Replays fail on a gap in the numbering (a lost segment, or a torn record anywhere but at the
+ * end of the journal) rather than run the commands after it on the wrong state.
+ */
+public final class CommandJournal implements AutoCloseable {
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SEGMENT_FORMAT = "%020d" + SEGMENT_SUFFIX;
+    /* Length, checksum and timestamp */
+    private static final int HEADER_SIZE = Integer.BYTES * 3;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    /* Only accessed by the flusher, after opening */
+    private FileChannel segment;
+
+    /* Guarded by the lock. Appends signal the flusher, syncs signal the waiting callers */
+    private final Lock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long lastSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    /**
+     * Receives the journaled commands on replay
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        /**
+         * @param sequence  the command number
+         * @param timestamp the timestamp the command ran at
+         * @param command   the command, as appended
+         */
+        void replay(long sequence, int timestamp, byte[] command);
+    }
+
+    /**
+     * @param directory   the journal directory
+     * @param segmentSize the size after which segments are rotated
+     * @param segment     the segment appended to
+     * @param sequence    the number of the last journaled command
+     */
+    private CommandJournal(final Path directory, final long segmentSize,
+                           final FileChannel segment, final long sequence) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segment = segment;
+        lastSequence = sequence;
+        durableSequence = sequence;
+
+        flusher = new Thread(this::flushAll, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed. A torn record at the end of
+     * the journal is cut off
+     *
+     * @param directory    the journal directory
+     * @param segmentSize  the size after which segments are rotated
+     * @param nextSequence the number of the next command, unless the journal already holds it
+     *                     (the number after the last command of the latest snapshot)
+     * @return The journal, ready for appends
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static CommandJournal open(final Path directory, final long segmentSize,
+                                      final long nextSequence) throws IOException {
+        boolean created = !Files.isDirectory(directory);
+        Files.createDirectories(directory);
+        if (created) {
+            DurableFiles.syncDirectory(directory.toAbsolutePath().getParent());
+        }
+        List<Path> segments = segments(directory);
+
+        long sequence = nextSequence - 1;
+        Path path = null;
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            long[] count = {0};
+
+            try (FileChannel channel = FileChannel.open(last, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(scan(channel, (index, timestamp, command) -> count[0]++));
+            }
+
+            /* Keep appending to the last segment, unless the snapshot is ahead of it */
+            long lastInSegment = firstSequence(last) + count[0] - 1;
+            if (lastInSegment >= sequence) {
+                sequence = lastInSegment;
+                path = last;
+            }
+        }
+        if (path == null) {
+            path = directory.resolve(String.format(SEGMENT_FORMAT, sequence + 1));
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        DurableFiles.syncDirectory(directory);
+        return new CommandJournal(directory, segmentSize, channel, sequence);
+    }
+
+    /**
+     * Replays the journaled commands after a given one, in order. The journal must hold every
+     * command from the one after the given one on, without gaps
+     *
+     * @param after    the number of the last command not to be replayed
+     * @param replayer receives the commands
+     * @return The number of replayed commands
+     * @throws IOException in case of exceptions to reading, or if commands are missing
+     */
+    public long replay(final long after, final Replayer replayer) throws IOException {
+        List<Path> segments = segments(directory);
+        long[] replayed = {0};
+        /* Number of the next command to replay, once the first segment read was checked */
+        long expected = -1;
+
+        for (int i = 0; i < segments.size(); i++) {
+            long first = firstSequence(segments.get(i));
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= after + 1) {
+                continue;
+            }
+
+            if (expected < 0 && first > after + 1) {
+                throw new IOException("Journal starts at command " + first
+                        + ", commands after " + after + " are missing");
+            }
+            if (expected >= 0 && first != expected) {
+                throw new IOException("Journal segment " + segments.get(i).getFileName()
+                        + " does not follow command " + (expected - 1));
+            }
+
+            long[] sequence = {first};
+            try (FileChannel channel = FileChannel.open(segments.get(i),
+                    StandardOpenOption.READ)) {
+                scan(channel, (number, timestamp, command) -> {
+                    if (sequence[0] > after) {
+                        replayer.replay(sequence[0], timestamp, command);
+                        replayed[0]++;
+                    }
+                    sequence[0]++;
+                });
+            }
+            expected = sequence[0];
+        }
+
+        return replayed[0];
+    }
+
+    /**
+     * Appends a command. It is durable once awaitDurable returns for its number
+     *
+     * @param timestamp the timestamp the command runs at
+     * @param command   the command
+     * @return The number of the command
+     * @throws IOException if the journal failed or was closed
+     */
+    public long append(final int timestamp, final byte[] command) throws IOException {
+        int checksum = checksum(new CRC32(), timestamp, command);
+
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            if (closed) {
+                throw new IOException("Journal closed");
+            }
+
+            reserve(HEADER_SIZE + command.length);
+            pending.putInt(command.length).putInt(checksum).putInt(timestamp).put(command);
+
+            lastSequence++;
+            appended.signal();
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a command is on disk
+     *
+     * @param sequence the number of the command
+     * @throws IOException if the journal failed before the command was written
+     */
+    public void awaitDurable(final long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw failure;
+                }
+                synced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of the last appended command
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments holding only commands up to the given one. The segment being
+     * appended to is always kept
+     *
+     * @param sequence the number of the last command included in a durable snapshot
+     * @throws IOException in case of exceptions to deleting
+     */
+    public void compact(final long sequence) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            Files.delete(segments.get(i));
+        }
+    }
+
+    /**
+     * Writes all pending commands, then stops the flusher
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        segment.close();
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes room for a record in the pending buffer
+     *
+     * @param size the record size
+     */
+    private void reserve(final int size) {
+        if (pending.remaining() >= size) {
+            return;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                pending.position() + size));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    /**
+     * Flusher loop: writes and syncs the pending commands in batches, until closed
+     */
+    private void flushAll() {
+        while (true) {
+            ByteBuffer batch;
+            long batchSequence;
+
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    appended.await();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+
+                batch = pending;
+                batchSequence = lastSequence;
+                pending = spare;
+                spare = batch;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+
+                if (segment.size() >= segmentSize) {
+                    segment.close();
+                    segment = FileChannel.open(
+                            directory.resolve(String.format(SEGMENT_FORMAT, batchSequence + 1)),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND);
+                    DurableFiles.syncDirectory(directory);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                batch.clear();
+                durableSequence = batchSequence;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @param directory the journal directory
+     * @return The segments, in command order
+     * @throws IOException in case of exceptions to listing
+     */
+    private static List<Path> segments(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort(null);
+            return segments;
+        }
+    }
+
+    /**
+     * @param segment a segment file
+     * @return The number of its first command
+     */
+    private static long firstSequence(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @param checksum  the checksum, reset before use
+     * @param timestamp the timestamp of a record
+     * @param command   the command of a record
+     * @return The checksum of the record
+     */
+    private static int checksum(final CRC32 checksum, final int timestamp,
+                                final byte[] command) {
+        checksum.reset();
+        checksum.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, timestamp).array());
+        checksum.update(command);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Reads the records of a segment through a memory-mapped buffer, up to the first torn one
+     *
+     * @param channel  the segment
+     * @param replayer receives the records (numbered from 0 within the segment)
+     * @return The size of the valid records
+     * @throws IOException in case of exceptions to reading
+     */
+    private static long scan(final FileChannel channel, final Replayer replayer)
+            throws IOException {
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Journal segment too large to be mapped");
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        CRC32 checksum = new CRC32();
+        long index = 0;
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            int timestamp = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+
+            byte[] command = new byte[length];
+            buffer.get(command);
+
+            if (checksum(checksum, timestamp, command) != expected) {
+                buffer.position(start);
+                break;
+            }
+
+            replayer.replay(index++, timestamp, command);
+        }
+
+        return buffer.position();
+    }
+}
@@ -0,0 +1,242 @@
+package databases.snapshot;
+
+import databases.DurableFiles;
+import databases.EngineSession;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshots of a whole session: library, users (with their players, pages and
+ * listens), revenues and the player clock.
+ * <p>
+ * The object graph is written with Java serialization, so shared references (a song in many
+ * playlists, the users of a playlist) are written once and restored as shared references.
+ * Snapshots are read through a memory-mapped buffer, so restoring costs as much as the
+ * snapshot size, however many commands built the state.
+ * <p>
+ * Every serialized class declares its {@code serialVersionUID}, so snapshots stay readable
+ * across builds as long as the serialized classes only change compatibly (added fields
+ * restore to their defaults, methods do not matter). An incompatible change to the fields of
+ * a class must bump its {@code serialVersionUID}, and a change to the header must bump
+ * {@link #FORMAT_VERSION}; older snapshots are then rejected with an {@link IOException}.
+ * <p>
+ * Each snapshot also holds the sequence number of the last journaled command it includes,
+ * so that only the commands after it are replayed.
+ * <p>
+ * A snapshot replaces the previous one through an atomic rename, once its contents are on
+ * disk, and the directory is synced after the rename: the new snapshot is durable before
+ * anything it covers (such as journal segments) is deleted.
+ */
+public final class SessionSnapshot {
+    /* "GWSS", checked before anything else is read */
+    private static final int MAGIC = 0x47575353;
+    private static final int FORMAT_VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * for coding style
+     */
+    private SessionSnapshot() {
+    }
+
+    /**
+     * Writes the state of a session, which includes no journaled command
+     *
+     * @param session the session, which must not be running commands
+     * @param path    the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final EngineSession session, final Path path) throws IOException {
+        write(session, 0, path);
+    }
+
+    /**
+     * Writes the state of a session. The file is replaced only once the snapshot is complete
+     * and on disk
+     *
+     * @param session  the session, which must not be running commands
+     * @param sequence the sequence number of the last journaled command in the session
+     * @param path     the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final EngineSession session, final long sequence, final Path path)
+            throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            serialize(session, sequence, new BufferedOutputStream(file, BUFFER_SIZE));
+            file.getFD().sync();
+        }
+
+        replace(temporary, path);
+    }
+
+    /**
+     * Serializes the state of a session in memory, so that it can be written to disk while
+     * the session runs further commands
+     *
+     * @param session  the session, which must not be running commands
+     * @param sequence the sequence number of the last journaled command in the session
+     * @return The snapshot, to be written with write
+     * @throws IOException in case of exceptions to serializing
+     */
+    public static byte[] serialize(final EngineSession session, final long sequence)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        serialize(session, sequence, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a serialized snapshot. The file is replaced only once the snapshot is on disk
+     *
+     * @param snapshot the snapshot, as serialized
+     * @param path     the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final byte[] snapshot, final Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            file.write(snapshot);
+            file.getFD().sync();
+        }
+
+        replace(temporary, path);
+    }
+
+    /**
+     * Writes the snapshot header and the session
+     *
+     * @param session  the session
+     * @param sequence the sequence number of the last journaled command in the session
+     * @param stream   the output, flushed but not closed
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void serialize(final EngineSession session, final long sequence,
+                                  final OutputStream stream) throws IOException {
+        ObjectOutputStream out = new ObjectOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(sequence);
+        out.writeObject(session);
+        out.flush();
+    }
+
+    /**
+     * Renames a complete snapshot over the previous one, then syncs the directory so that the
+     * rename survives a crash
+     *
+     * @param temporary the complete snapshot, on disk
+     * @param path      the snapshot file
+     * @throws IOException in case of exceptions to renaming or syncing
+     */
+    private static void replace(final Path temporary, final Path path) throws IOException {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        DurableFiles.syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Restores a session from a snapshot
+     *
+     * @param path the snapshot file
+     * @return The restored session
+     * @throws IOException in case of exceptions to reading, or if the file is not a snapshot
+     */
+    public static EngineSession read(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to be mapped: " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            try (ObjectInputStream in = new ObjectInputStream(new BufferInputStream(buffer))) {
+                readSequence(in, path);
+                return (EngineSession) in.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Incompatible session snapshot: " + path, e);
+            }
+        }
+    }
+
+    /**
+     * @param path the snapshot file
+     * @return The sequence number of the last journaled command in the snapshot
+     * @throws IOException in case of exceptions to reading, or if the file is not a snapshot
+     */
+    public static long readSequence(final Path path) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(path))) {
+            return readSequence(in, path);
+        }
+    }
+
+    /**
+     * Reads the snapshot header
+     *
+     * @param in   the snapshot stream
+     * @param path the snapshot file
+     * @return The sequence number of the last journaled command in the snapshot
+     * @throws IOException in case of exceptions to reading, or if the file is not a snapshot
+     */
+    private static long readSequence(final ObjectInputStream in, final Path path)
+            throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a session snapshot: " + path);
+        }
+        return in.readLong();
+    }
+
+    /**
+     * Input stream over a byte buffer
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        /**
+         * @param buffer the buffer, read from its position to its limit
+         */
+        BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -6,19 +6,29 @@ import app.audiofiles.collections.Podcast;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.Host;
+import databases.EngineSession;
 import fileio.commands.wrapper.CommandWrapper;
 import fileio.input.PodcastInput;
 import fileio.input.SongInput;
 import fileio.input.UserInput;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utility class that creates different types of TiedEntities
  */
-public final class TieFactory {
-    public TieFactory() {
+public final class TieFactory implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /* The session all created entities are bound to */
+    private final EngineSession session;
+
+    public TieFactory(final EngineSession session) {
+        this.session = session;
     }
 
     /**
@@ -44,7 +54,27 @@ public final class TieFactory {
      * @return The newly-created user
      */
     public User createUser(final CommandWrapper input) {
-        return new User(getUserInput(input));
+        return createUser(getUserInput(input));
+    }
+
+    /**
+     * Creates a new User from the library input
+     *
+     * @param userInput the user data
+     * @return The newly-created user
+     */
+    public User createUser(final UserInput userInput) {
+        return new User(userInput, session);
+    }
+
+    /**
+     * Creates a new song
+     *
+     * @param songInput the song data
+     * @return The new song
+     */
+    public Song createSong(final SongInput songInput) {
+        return new Song(songInput, session);
     }
 
     /**
@@ -54,7 +84,7 @@ public final class TieFactory {
      * @return The newly-created Artist
      */
     public Artist createArtist(final CommandWrapper input) {
-        return new Artist(getUserInput(input));
+        return new Artist(getUserInput(input), session);
     }
 
     /**
@@ -64,7 +94,7 @@ public final class TieFactory {
      * @return The newly-created Host
      */
     public Host createHost(final CommandWrapper input) {
-        return new Host(getUserInput(input));
+        return new Host(getUserInput(input), session);
     }
 
     /**
@@ -76,17 +106,18 @@ public final class TieFactory {
     public Album createAlbum(final CommandWrapper input) {
         List<Song> songs = new ArrayList<>();
         for (SongInput songInput : input.getSongs()) {
-            songs.add(new Song(songInput));
+            songs.add(createSong(songInput));
         }
 
         Album album = new Album(
                 input.getName(),
                 input.getUsername(),
                 input.getDescription(),
-                input.getReleaseYear()
+                input.getReleaseYear(),
+                session
         );
 
-        album.getSongs().addAll(songs);
+        album.addSongs(songs);
         return album;
     }
 
@@ -103,6 +134,16 @@ public final class TieFactory {
         podcastInput.setOwner(input.getUsername());
         podcastInput.setEpisodes(input.getEpisodes());
 
-        return new Podcast(podcastInput);
+        return createPodcast(podcastInput);
+    }
+
+    /**
+     * Creates a new podcast
+     *
+     * @param podcastInput the podcast data
+     * @return The new podcast
+     */
+    public Podcast createPodcast(final PodcastInput podcastInput) {
+        return new Podcast(podcastInput, session);
     }
 }
@@ -12,6 +12,7 @@ public abstract class Command {
     private String command;
     @Setter
     private String username;
+    @Setter
     private int timestamp;
 
     public Command() {
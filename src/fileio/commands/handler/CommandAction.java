@@ -0,0 +1,15 @@
+package fileio.commands.handler;
+
+/**
+ * Action bound to a command name. Executed by standard responses.
+ */
+@FunctionalInterface
+public interface CommandAction {
+    /**
+     * Executes the command
+     *
+     * @param context the command context
+     * @return The response message or null if the command does not apply
+     */
+    String execute(CommandContext context);
+}
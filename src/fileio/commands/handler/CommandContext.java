@@ -0,0 +1,32 @@
+package fileio.commands.handler;
+
+import app.admin.Admin;
+import app.users.normal.User;
+import databases.Library;
+import databases.UserDatabase;
+import fileio.commands.wrapper.CommandWrapper;
+
+/**
+ * Everything a command action may need, resolved once per command.
+ *
+ * @param input        the command
+ * @param user         the normal user issuing the command or null
+ * @param library      the library
+ * @param userDatabase the user database
+ */
+public record CommandContext(CommandWrapper input, User user, Library library,
+                             UserDatabase userDatabase) {
+    /**
+     * @return The timestamp of the command
+     */
+    public int timestamp() {
+        return input.getTimestamp();
+    }
+
+    /**
+     * @return The admin operations of the session the command runs in
+     */
+    public Admin admin() {
+        return library.getSession().getAdmin();
+    }
+}
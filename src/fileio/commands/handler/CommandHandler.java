@@ -1,11 +1,8 @@
 package fileio.commands.handler;
 
-import factory.response.AbstractResponseFactory;
-import factory.response.ResponseFactory;
+import databases.EngineSession;
 import fileio.commands.Response;
 import fileio.commands.wrapper.CommandWrapper;
-import databases.Library;
-import databases.UserDatabase;
 
 /**
  * Handles all command cases and returns the corresponding response
@@ -17,15 +14,15 @@ public final class CommandHandler {
     /**
      * Executes the given input command
      *
+     * @param session the session the command runs in
      * @param command the command
      * @return The corresponding response
      */
-    public static Response executeCommand(final CommandWrapper command) {
-        AbstractResponseFactory abstractFactory = AbstractResponseFactory.getInstance();
-        ResponseFactory factory = abstractFactory.createObject(new Object[]{command.getCommand()});
-        Response response = factory.createObject(new Object[]{command});
+    public static Response executeCommand(final EngineSession session,
+                                          final CommandWrapper command) {
+        Response response = CommandRegistry.getInstance().createResponse(command);
 
-        response.getResponse(Library.getInstance(), UserDatabase.getInstance(), command);
+        response.getResponse(session.getLibrary(), session.getUserDatabase(), command);
         return response;
     }
 }
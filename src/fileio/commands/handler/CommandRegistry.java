@@ -0,0 +1,212 @@
+package fileio.commands.handler;
+
+import app.page.handler.PageHandler;
+import fileio.commands.Response;
+import fileio.commands.search.SearchCommand;
+import fileio.commands.search.SearchResponse;
+import fileio.commands.statistics.InfoResponse;
+import fileio.commands.statistics.StatResponse;
+import fileio.commands.status.StatusResponse;
+import fileio.commands.wrapper.CommandWrapper;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Table of all known commands. Each command name is bound once to the constructor of its
+ * response and, for standard responses, to the action that executes it.
+ * <p>
+ * New commands only need to be registered here. The table is frozen once built, so it is safely
+ * read by any number of threads (batch workers, lanes, server connections).
+ */
+public final class CommandRegistry {
+    /* Thread-safe singleton */
+    @Getter
+    private static CommandRegistry instance;
+
+    static {
+        synchronized (CommandRegistry.class) {
+            instance = new CommandRegistry();
+        }
+    }
+
+    /* Filled by the constructor, then frozen */
+    private Map<String, Function<CommandWrapper, Response>> responses = new HashMap<>();
+
+    /* Stateless helper shared by all actions */
+    private final PageHandler pageHandler = new PageHandler();
+
+    private CommandRegistry() {
+        registerUserCommands();
+        registerPageCommands();
+        registerAdminCommands();
+        registerInfoCommands();
+
+        registerResponse("search", input -> new SearchResponse(new SearchCommand(input)));
+        registerResponse("status", StatusResponse::new);
+        registerResponse("wrapped", StatResponse::new);
+
+        responses = Map.copyOf(responses);
+    }
+
+    /**
+     * Binds a command to a response constructor
+     *
+     * @param command     the command name
+     * @param constructor creates the response of the command
+     */
+    private void registerResponse(final String command,
+                                  final Function<CommandWrapper, Response> constructor) {
+        responses.put(command, constructor);
+    }
+
+    /**
+     * Binds a command to an action executed by a standard response
+     *
+     * @param command the command name
+     * @param action  the action
+     */
+    private void registerAction(final String command, final CommandAction action) {
+        registerResponse(command, input -> new Response(input, action));
+    }
+
+    /**
+     * Same as registerAction, for commands that only apply to normal users
+     *
+     * @param command the command name
+     * @param action  the action, called with a non-null user
+     */
+    private void registerUserAction(final String command, final CommandAction action) {
+        registerAction(command, context ->
+                (context.user() != null) ? action.execute(context) : null
+        );
+    }
+
+    /**
+     * Creates the response of a command
+     *
+     * @param input the command
+     * @return The response, ready to be executed
+     */
+    public Response createResponse(final CommandWrapper input) {
+        Function<CommandWrapper, Response> constructor = responses.get(input.getCommand());
+        if (constructor != null) {
+            return constructor.apply(input);
+        }
+
+        /* Unknown commands. Watch out for future commands not respecting this */
+        String commandType = input.getCommand();
+        if (commandType.startsWith("show") || commandType.startsWith("get")) {
+            return new InfoResponse(input);
+        }
+        return new Response(input);
+    }
+
+    /**
+     * Player, search bar and playlist commands
+     */
+    private void registerUserCommands() {
+        registerUserAction("select", context -> context.user().getSearchBar()
+                .doSelect(context.input().getItemNumber(), context.user()));
+        registerUserAction("load", context -> context.user().getMediaPlayer().loadFile(
+                context.user().getSearchBar().popSelection(),
+                context.user().getSearchBar().syncState(), context.timestamp()
+        ));
+        registerUserAction("playPause", context ->
+                context.user().getMediaPlayer().playPauseFile(context.timestamp()));
+        registerUserAction("next", context ->
+                context.user().getMediaPlayer().playNext(context.timestamp()));
+        registerUserAction("prev", context ->
+                context.user().getMediaPlayer().playPrevious(context.timestamp()));
+        registerUserAction("repeat", context ->
+                context.user().getMediaPlayer().repeatFile(context.timestamp()));
+        registerUserAction("like", context ->
+                context.user().getMediaPlayer().likeSong(context.user(), context.timestamp()));
+        registerUserAction("shuffle", context -> context.user().getMediaPlayer()
+                .shuffleLoadedFile(context.input().getSeed(), context.timestamp()));
+
+        CommandAction skip = context -> context.user().getMediaPlayer()
+                .executeSkip(context.input().getCommand(), context.timestamp());
+        registerUserAction("forward", skip);
+        registerUserAction("backward", skip);
+
+        registerUserAction("addRemoveInPlaylist", context -> context.user().getMediaPlayer()
+                .addRemoveInPlaylist(context.user(), context.timestamp(),
+                        context.input().getPlaylistId()));
+        registerUserAction("follow", context ->
+                context.user().getSearchBar().followPlaylist(context.user()));
+        registerUserAction("createPlaylist", context -> context.user()
+                .createPlaylist(context.input().getPlaylistName(), context.library()));
+        registerUserAction("switchVisibility", context ->
+                context.user().switchPlaylistPrivacy(context.input().getPlaylistId()));
+        registerUserAction("loadRecommendations", context ->
+                context.user().loadRecommendation(context.timestamp()));
+    }
+
+    /**
+     * Page navigation and page content commands
+     */
+    private void registerPageCommands() {
+        registerAction("changePage", context -> pageHandler.changePage(
+                context.user(), context.input().getNextPage(), context.timestamp()
+        ));
+        registerAction("printCurrentPage", context -> pageHandler.printPage(context.user()));
+        registerAction("addMerch", context ->
+                pageHandler.addMerchTo(context.userDatabase(), context.input()));
+        registerAction("addAnnouncement", context ->
+                pageHandler.addAnnouncementTo(context.userDatabase(), context.input()));
+        registerAction("removeAnnouncement", context ->
+                pageHandler.removeAnnouncementFrom(context.userDatabase(), context.input()));
+        registerAction("addEvent", context ->
+                pageHandler.addEventTo(context.userDatabase(), context.input()));
+        registerAction("removeEvent", context ->
+                pageHandler.removeEventFrom(context.userDatabase(), context.input()));
+
+        CommandAction browse = context -> pageHandler.browsePages(context.user(), context.input());
+        registerAction("nextPage", browse);
+        registerAction("previousPage", browse);
+    }
+
+    /**
+     * Admin commands
+     */
+    private void registerAdminCommands() {
+        registerAction("addUser", context -> context.admin().addUser(context.input()));
+        registerAction("deleteUser", context -> context.admin().deleteUser(context.input()));
+        registerAction("addAlbum", context -> context.admin().addAlbum(context.input()));
+        registerAction("removeAlbum", context -> context.admin().removeAlbum(context.input()));
+        registerAction("addPodcast", context -> context.admin().addPodcast(context.input()));
+        registerAction("removePodcast", context -> context.admin().removePodcast(context.input()));
+        registerAction("switchConnectionStatus", context -> context.admin().switchConnectionOf(
+                context.input().getUsername(), context.timestamp()
+        ));
+
+        CommandAction switchPremium = context ->
+                context.admin().switchPremium(context.user(), context.input());
+        registerAction("buyPremium", switchPremium);
+        registerAction("cancelPremium", switchPremium);
+
+        registerAction("adBreak", context ->
+                context.admin().insertAd(context.user(), context.input()));
+        registerAction("buyMerch", context ->
+                context.admin().doBuyMerch(context.user(), context.input()));
+        registerAction("subscribe", context ->
+                context.admin().addSubscription(context.user(), context.input()));
+        registerAction("updateRecommendations", context ->
+                context.admin().updateRecommendations(context.input()));
+    }
+
+    /**
+     * Statistics commands, answered by InfoResponse
+     */
+    private void registerInfoCommands() {
+        for (String command : new String[]{
+                "showPlaylists", "showAlbums", "showPodcasts", "showPreferredSongs",
+                "getNotifications", "getTop5Songs", "getTop5Playlists", "getTop5Albums",
+                "getTop5Artists", "getAllUsers", "getOnlineUsers", "seeMerch"}) {
+            registerResponse(command, InfoResponse::new);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package fileio.commands.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import databases.EffectLog;
+import databases.EngineSession;
+import fileio.commands.wrapper.CommandWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the commands of a session on parallel lanes, keeping the results of a sequential run.
+ * <p>
+ * Commands which only touch the state of their own user are buffered and each user is bound
+ * to a lane, so the commands of a user run in order on the same thread. Updates of shared
+ * state are recorded by the session's effect log and applied in command order once all lanes
+ * finished. Any other command (admin commands, statistics, pages listing shared data) is a
+ * barrier: the buffered commands are flushed, then it runs alone.
+ */
+public final class LaneExecutor implements AutoCloseable {
+    /* Buffered commands are flushed after this many, to bound the memory of the responses */
+    private static final int MAX_EPOCH = 4096;
+
+    /* Commands reading and writing only the state of their user (shared updates are effects) */
+    private static final Set<String> LANE_COMMANDS = Set.of(
+            "search", "select", "load", "status", "playPause", "next", "prev", "forward",
+            "backward", "repeat", "shuffle", "like", "follow", "changePage", "nextPage",
+            "previousPage", "adBreak", "loadRecommendations"
+    );
+
+    private final EngineSession session;
+    private final ExecutorService workers;
+    private final int laneCount;
+
+    /* Lane of each user, assigned round robin on first command */
+    private final Map<String, Integer> userLanes = new HashMap<>();
+    private final List<List<Integer>> lanes = new ArrayList<>();
+    private final List<CommandWrapper> epoch = new ArrayList<>();
+
+    /**
+     * @param session   the session the commands run in
+     * @param laneCount the number of parallel lanes
+     */
+    public LaneExecutor(final EngineSession session, final int laneCount) {
+        this.session = session;
+        this.laneCount = laneCount;
+        workers = Executors.newFixedThreadPool(laneCount);
+
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @param command a command
+     * @return Whether the command can run on a lane
+     */
+    public static boolean isLaneCommand(final CommandWrapper command) {
+        return command.getUsername() != null && LANE_COMMANDS.contains(command.getCommand());
+    }
+
+    /**
+     * Executes a command, or buffers it until the next barrier
+     *
+     * @param command the command
+     * @return The responses of all commands completed by this call, in command order
+     * @throws IOException if a command failed
+     */
+    public List<JsonNode> execute(final CommandWrapper command) throws IOException {
+        if (isLaneCommand(command)) {
+            int lane = userLanes.computeIfAbsent(command.getUsername(),
+                    username -> userLanes.size() % laneCount);
+            lanes.get(lane).add(epoch.size());
+            epoch.add(command);
+
+            return (epoch.size() < MAX_EPOCH) ? List.of() : flush();
+        }
+
+        List<JsonNode> responses = flush();
+        responses.add(CommandHandler.executeCommand(session, command).toNode());
+        return responses;
+    }
+
+    /**
+     * Runs all buffered commands
+     *
+     * @return Their responses, in command order
+     * @throws IOException if a command failed
+     */
+    public List<JsonNode> flush() throws IOException {
+        List<JsonNode> responses = new ArrayList<>(epoch.size() + 1);
+        if (epoch.isEmpty()) {
+            return responses;
+        }
+
+        JsonNode[] nodes = new JsonNode[epoch.size()];
+        EffectLog effects = session.getEffects();
+
+        List<Callable<EffectLog.Recording>> tasks = new ArrayList<>();
+        for (List<Integer> lane : lanes) {
+            if (!lane.isEmpty()) {
+                tasks.add(() -> runLane(lane, nodes));
+            }
+        }
+
+        effects.startRecording();
+        List<EffectLog.Recording> recordings = new ArrayList<>();
+        try {
+            for (Future<EffectLog.Recording> future : workers.invokeAll(tasks)) {
+                recordings.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Command failed on a lane", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running lanes", e);
+        } finally {
+            effects.stopRecording();
+        }
+
+        effects.applyInOrder(recordings);
+
+        epoch.clear();
+        lanes.forEach(List::clear);
+        responses.addAll(List.of(nodes));
+        return responses;
+    }
+
+    /**
+     * @param lane  the indexes of the lane's commands in the epoch
+     * @param nodes the responses of the epoch, filled in by the lanes
+     * @return The effects of the lane
+     */
+    private EffectLog.Recording runLane(final List<Integer> lane, final JsonNode[] nodes) {
+        EffectLog effects = session.getEffects();
+        EffectLog.Recording recording = effects.record();
+        try {
+            for (int index : lane) {
+                recording.setCommand(index);
+                nodes[index] = CommandHandler.executeCommand(session, epoch.get(index)).toNode();
+            }
+            return recording;
+        } finally {
+            effects.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+}
@@ -1,16 +1,15 @@
 package fileio.commands.statistics;
 
-import app.audiofiles.Song;
 import app.users.creators.Artist;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import databases.Library;
+import databases.RevenueLedger;
 import databases.UserDatabase;
 import fileio.commands.Response;
 import fileio.commands.utils.constants.ResponseConstants;
 import fileio.commands.utils.stats.ArtistRevenue;
 import fileio.commands.wrapper.CommandWrapper;
-import lombok.Getter;
 
 import java.util.Map;
 import java.util.LinkedHashMap;
@@ -24,28 +23,10 @@ import java.util.Comparator;
 public final class EndProgramResponse extends Response {
     private Map<String, ArtistRevenue> result = new LinkedHashMap<>();
 
-    @Getter
-    private static Map<Song, Double> songRevenues;
-
-    static {
-        synchronized (EndProgramResponse.class) {
-            songRevenues = new LinkedHashMap<>();
-        }
-    }
-
     public EndProgramResponse(final String command) {
         super(command);
     }
 
-    /**
-     * Clears all listened to songs.
-     * <p>
-     * !!! This method should be removed in production !!!
-     */
-    public static void clearSongs() {
-        songRevenues.clear();
-    }
-
     /**
      * Sorts the result map and sets the ranking.
      */
@@ -66,49 +47,17 @@ public final class EndProgramResponse extends Response {
     }
 
     /**
-     * Sets the most profitable song for a given artist
+     * Adds the song revenues of all artists from the revenue ledger
      *
-     * @param artistName the artist
-     * @param target     the entry to be updated
-     */
-    private void resultSetMostProfitable(final String artistName, final ArtistRevenue target) {
-        double maxRevenue = 0.0;
-        String songName = "N/A";
-
-        for (var entry : songRevenues.entrySet()) {
-            if (!entry.getKey().getArtist().equals(artistName)
-                    || entry.getValue() == 0.0) {
-                continue;
-            }
-
-            if (entry.getValue() > maxRevenue) {
-                maxRevenue = entry.getValue();
-                songName = entry.getKey().getName();
-            } else if (entry.getValue() == maxRevenue
-                    && entry.getKey().getName().compareTo(songName) < 0) {
-                songName = entry.getKey().getName();
-            }
-        }
-
-        target.setMostProfitableSong(songName);
-    }
-
-
-    /**
-     * Adds all listened to songs in the revenue map
+     * @param ledger the revenue ledger
      */
-    private void resultAddSongs() {
-        for (var entry : songRevenues.entrySet()) {
-            ArtistRevenue value = result.get(entry.getKey().getArtist());
+    private void resultAddSongs(final RevenueLedger ledger) {
+        for (String artistName : ledger.getArtists()) {
+            ArtistRevenue value = new ArtistRevenue(ledger.getSongRevenue(artistName), 0, 0);
+            value.setMostProfitableSong(ledger.getMostProfitableSong(artistName));
 
-            if (value == null) {
-                result.put(entry.getKey().getArtist(), new ArtistRevenue(entry.getValue(), 0, 0));
-            } else {
-                value.setSongRevenue(value.getSongRevenue() + entry.getValue());
-            }
+            result.put(artistName, value);
         }
-
-        result.forEach(this::resultSetMostProfitable);
     }
 
     /**
@@ -144,35 +93,6 @@ public final class EndProgramResponse extends Response {
         }
     }
 
-    /**
-     * Merges songs with the same name, from the same artist
-     */
-    public void mergeSongRevenues() {
-        Map<Song, Double> mergedMap = new LinkedHashMap<>();
-        for (var entry : songRevenues.entrySet()) {
-            Song currentSong = entry.getKey();
-
-            /* Check if added */
-            if (mergedMap.entrySet().stream().filter(mapEntry ->
-                    mapEntry.getKey().getName().equals(currentSong.getName())
-                            && mapEntry.getKey().getArtist().equals(currentSong.getArtist())
-            ).findAny().orElse(null) != null) {
-                continue;
-            }
-
-            /* Compute sum */
-            double sum = songRevenues.entrySet().stream().filter(mapEntry ->
-                    mapEntry.getKey().getName().equals(currentSong.getName())
-                            && mapEntry.getKey().getArtist().equals(currentSong.getArtist())
-            ).mapToDouble(Map.Entry::getValue).sum();
-
-            mergedMap.put(entry.getKey(), sum);
-        }
-
-        songRevenues = mergedMap;
-    }
-
-
     @Override
     public void getResponse(final Library library, final UserDatabase userDatabase,
                             final CommandWrapper input) {
@@ -183,9 +103,7 @@ public final class EndProgramResponse extends Response {
             user.addAdRevenue(0.0);
         });
 
-        mergeSongRevenues();
-
-        resultAddSongs();
+        resultAddSongs(library.getSession().getRevenueLedger());
         resultFormatSongs();
         resultAddMerch(userDatabase);
 
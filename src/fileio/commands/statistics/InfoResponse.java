@@ -1,6 +1,7 @@
 package fileio.commands.statistics;
 
 import app.audiofiles.Song;
+import app.users.tie.TiedUserEntity;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.Host;
@@ -85,9 +86,10 @@ public final class InfoResponse extends Response {
     @Override
     public void getResponse(final Library library, final UserDatabase userDatabase,
                             final CommandWrapper input) {
-        User user = userDatabase.getUserByName(input.getUsername());
-        Artist artist = userDatabase.getArtistByName(input.getUsername());
-        Host host = userDatabase.getHostByName(input.getUsername());
+        TiedUserEntity entity = userDatabase.findUsername(input.getUsername());
+        User user = (entity instanceof User normalUser) ? normalUser : null;
+        Artist artist = (entity instanceof Artist creator) ? creator : null;
+        Host host = (entity instanceof Host creator) ? creator : null;
 
         /* Split for future refactoring or extension */
         getFormattedResults(user, artist, host, input);
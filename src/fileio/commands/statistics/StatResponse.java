@@ -1,5 +1,6 @@
 package fileio.commands.statistics;
 
+import app.users.tie.TiedUserEntity;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.Host;
@@ -26,9 +27,10 @@ public final class StatResponse extends Response {
     @Override
     public void getResponse(final Library library, final UserDatabase userDatabase,
                             final CommandWrapper input) {
-        User user = userDatabase.getUserByName(input.getUsername());
-        Host host = userDatabase.getHostByName(input.getUsername());
-        Artist artist = userDatabase.getArtistByName(input.getUsername());
+        TiedUserEntity entity = userDatabase.findUsername(input.getUsername());
+        User user = (entity instanceof User normalUser) ? normalUser : null;
+        Host host = (entity instanceof Host creator) ? creator : null;
+        Artist artist = (entity instanceof Artist creator) ? creator : null;
 
         userDatabase.updateAllPlayers(input.getTimestamp());
 
@@ -1,12 +1,15 @@
 package fileio.commands.utils.stats;
 
+import app.audiofiles.Song;
 import app.users.normal.User;
 import app.users.creators.Artist;
 import app.users.creators.Host;
+import app.users.creators.stats.ArtistListens;
+import app.users.creators.stats.HostListens;
 import app.utils.constants.searchbar.SearchBarConstants;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import databases.UserDatabase;
+import databases.Library;
+import fileio.serialization.SerializationContext;
 import lombok.Getter;
 import visitor.UserVisitor;
 
@@ -37,8 +40,7 @@ public final class StatResult implements UserVisitor {
      * @param userType the user type (to add only specific results)
      */
     public ObjectNode toNode(final String userType) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode objectNode = objectMapper.createObjectNode();
+        ObjectNode objectNode = SerializationContext.getInstance().createObjectNode();
 
         if (userType.equals("user")) {
             objectNode.putPOJO("topArtists", topArtists);
@@ -142,15 +144,17 @@ public final class StatResult implements UserVisitor {
 
         prepareForUser();
 
+        Library library = user.getSession().getLibrary();
         user.getListenedSongs().forEach((key, value) -> {
-            addToKey(topSongs, key.getName(), value);
-            addToKey(topArtists, key.getArtist(), value);
-            addToKey(topAlbums, key.getAlbum(), value);
-            addToKey(topGenres, key.getGenre(), value);
+            Song song = library.getSongById(key);
+            addToKey(topSongs, song.getName(), value);
+            addToKey(topArtists, song.getArtist(), value);
+            addToKey(topAlbums, song.getAlbum(), value);
+            addToKey(topGenres, song.getGenre(), value);
         });
 
         user.getListenedEpisodes().forEach((key, value) ->
-                addToKey(topEpisodes, key.getName(), value)
+                addToKey(topEpisodes, library.getEpisodeById(key).getName(), value)
         );
 
         sortMaps();
@@ -160,18 +164,10 @@ public final class StatResult implements UserVisitor {
     public void visit(final Host host) {
         prepareForHost();
 
-        Map<String, Integer> fans = new LinkedHashMap<>();
+        HostListens listens = host.getListens();
+        topEpisodes.putAll(listens.getEpisodes().getCounts());
+        listeners = listens.getFans().size();
 
-        for (User user : UserDatabase.getInstance().getUsers()) {
-            for (var entry : user.getListenedEpisodes().entrySet()) {
-                if (host.hostsEpisode(entry.getKey())) {
-                    addToKey(topEpisodes, entry.getKey().getName(), entry.getValue());
-                    addToKey(fans, user.getName(), entry.getValue());
-                }
-            }
-        }
-
-        listeners = fans.entrySet().size();
         sortMaps();
 
         if (listeners == 0) {
@@ -183,22 +179,13 @@ public final class StatResult implements UserVisitor {
     public void visit(final Artist artist) {
         prepareForArtist();
 
-        Map<String, Integer> fans = new LinkedHashMap<>();
-        for (User user : UserDatabase.getInstance().getUsers()) {
-            for (var entry : user.getListenedSongs().entrySet()) {
-                if (entry.getKey().getArtist().equals(artist.getName())) {
-                    addToKey(topAlbums, entry.getKey().getAlbum(), entry.getValue());
-                    addToKey(topSongs, entry.getKey().getName(), entry.getValue());
-                    addToKey(fans, user.getName(), entry.getValue());
-                }
-            }
-        }
-
-        listeners = fans.entrySet().size();
+        ArtistListens listens = artist.getSession().getUserDatabase()
+                .listensOf(artist.getName());
+        topAlbums.putAll(listens.getAlbums().getCounts());
+        topSongs.putAll(listens.getSongs().getCounts());
+        listeners = listens.getFans().size();
 
-        /* Not using Artist.getTop5Fans because the previous for's would be done twice */
-        fans = sortMap(fans);
-        fans.forEach((key, value) -> topFans.add(key));
+        sortMap(listens.getFans().getCounts()).forEach((key, value) -> topFans.add(key));
 
         sortMaps();
 
@@ -1,6 +1,12 @@
 package fileio.input;
 
-public final class EpisodeInput {
+import java.io.Serial;
+import java.io.Serializable;
+
+public final class EpisodeInput implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private Integer duration;
     private String description;
@@ -1,8 +1,13 @@
 package fileio.input;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
 
-public final class PodcastInput {
+public final class PodcastInput implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private String owner;
     private ArrayList<EpisodeInput> episodes;
@@ -1,6 +1,12 @@
 package fileio.input;
 
-public final class UserInput {
+import java.io.Serial;
+import java.io.Serializable;
+
+public final class UserInput implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private String username;
     private int age;
     private String city;
@@ -0,0 +1,59 @@
+package fileio.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import fileio.input.PodcastInput;
+import fileio.input.SongInput;
+
+import java.util.ArrayList;
+
+/**
+ * Jackson mix-ins interning the repeated fields of the library inputs into the symbol table.
+ * <p>
+ * They are only registered on the mapper reading library files. Commands reuse the same input
+ * classes (the songs of addAlbum), but their strings come from clients and must not grow the
+ * symbol table, which never evicts.
+ */
+final class LibrarySymbols {
+    /**
+     * for coding style
+     */
+    private LibrarySymbols() {
+    }
+
+    /**
+     * @param mapper the shared mapper
+     * @return A copy of the mapper, interning the library symbols
+     */
+    static ObjectMapper libraryMapper(final ObjectMapper mapper) {
+        return mapper.copy()
+                .addMixIn(SongInput.class, SongSymbols.class)
+                .addMixIn(PodcastInput.class, PodcastSymbols.class);
+    }
+
+    /**
+     * Interned fields of SongInput
+     */
+    private abstract static class SongSymbols {
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String name;
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String album;
+        @JsonDeserialize(contentUsing = SymbolDeserializer.class)
+        private ArrayList<String> tags;
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String genre;
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String artist;
+    }
+
+    /**
+     * Interned fields of PodcastInput
+     */
+    private abstract static class PodcastSymbols {
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String name;
+        @JsonDeserialize(using = SymbolDeserializer.class)
+        private String owner;
+    }
+}
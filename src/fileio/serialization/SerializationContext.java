@@ -0,0 +1,78 @@
+package fileio.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.commands.wrapper.CommandWrapper;
+import fileio.input.LibraryInput;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared Jackson configuration. The mapper is configured once, so it (as well as the readers
+ * and writers built from it) is thread-safe and can be reused for every response.
+ */
+public final class SerializationContext {
+    /* Thread-safe singleton */
+    @Getter
+    private static SerializationContext instance;
+
+    static {
+        synchronized (SerializationContext.class) {
+            instance = new SerializationContext();
+        }
+    }
+
+    @Getter
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            /* Output is flushed by the buffered generators, not after each value */
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    @Getter
+    private final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+    @Getter
+    private final ObjectReader commandReader = objectMapper.readerFor(CommandWrapper.class);
+
+    /* Only library files intern their strings into the symbol table */
+    private final ObjectReader libraryReader = LibrarySymbols.libraryMapper(objectMapper)
+            .readerFor(LibraryInput.class);
+
+    /* Parsed libraries by path. The inputs are only read after parsing, never modified */
+    private final Map<String, LibraryInput> libraries = new ConcurrentHashMap<>();
+
+    private SerializationContext() {
+    }
+
+    /**
+     * @return A new empty object node
+     */
+    public ObjectNode createObjectNode() {
+        return objectMapper.createObjectNode();
+    }
+
+    /**
+     * Parses the library at the given path, only the first time it is requested
+     *
+     * @param path the library file path
+     * @return The parsed library
+     * @throws IOException in case of exceptions to reading
+     */
+    public LibraryInput readLibrary(final String path) throws IOException {
+        LibraryInput library = libraries.get(path);
+        if (library == null) {
+            library = libraryReader.readValue(new File(path));
+
+            LibraryInput previous = libraries.putIfAbsent(path, library);
+            if (previous != null) {
+                library = previous;
+            }
+        }
+
+        return library;
+    }
+}
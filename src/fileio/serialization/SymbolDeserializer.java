@@ -0,0 +1,31 @@
+package fileio.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Binds strings to their canonical instances from the symbol table.
+ * Only used on library input fields, whose values repeat across songs and podcasts, through
+ * the mix-ins of LibrarySymbols.
+ */
+public final class SymbolDeserializer extends StdScalarDeserializer<String> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public SymbolDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(final JsonParser parser, final DeserializationContext context)
+            throws IOException {
+        return SymbolTable.getInstance().intern(
+                StringDeserializer.instance.deserialize(parser, context)
+        );
+    }
+}
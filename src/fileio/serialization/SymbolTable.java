@@ -0,0 +1,120 @@
+package fileio.serialization;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the strings that repeat across the library (genres, artists, albums,
+ * owners, tags, names). Interned strings also keep their lower case and case-folded forms,
+ * so searches do not allocate them again and case-insensitive checks compare references.
+ * <p>
+ * Symbols are never evicted, so only library files are interned (see LibrarySymbols). Strings
+ * sent by clients (usernames, search filters, playlist names, the songs of added albums) are
+ * not, since any client could otherwise grow the table without bound. They are still accepted everywhere,
+ * falling back to the plain String methods.
+ */
+public final class SymbolTable {
+    /* Thread-safe singleton */
+    @Getter
+    private static SymbolTable instance;
+
+    static {
+        synchronized (SymbolTable.class) {
+            instance = new SymbolTable();
+        }
+    }
+
+    private final Map<String, Symbol> symbols = new ConcurrentHashMap<>();
+
+    private SymbolTable() {
+    }
+
+    /**
+     * Folds the case of a string the same way String.equalsIgnoreCase compares characters
+     *
+     * @param value the string
+     * @return The case-folded string
+     */
+    private static String fold(final String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param value the string
+     * @return The symbol of the string, created if needed
+     */
+    private Symbol symbolOf(final String value) {
+        Symbol symbol = symbols.get(value);
+        if (symbol != null) {
+            return symbol;
+        }
+
+        /* The folded form is a symbol itself, so that equal forms are the same reference */
+        String folded = fold(value);
+        String canonicalFold = (folded.equals(value)) ? value : symbolOf(folded).value();
+
+        symbol = new Symbol(value, value.toLowerCase(), canonicalFold);
+        Symbol previous = symbols.putIfAbsent(value, symbol);
+        return (previous != null) ? previous : symbol;
+    }
+
+    /**
+     * @param value the string, can be null
+     * @return The canonical instance of the string
+     */
+    public String intern(final String value) {
+        return (value == null) ? null : symbolOf(value).value();
+    }
+
+    /**
+     * @param value the string
+     * @return The lower case string, cached for interned strings
+     */
+    public String lowerCase(final String value) {
+        Symbol symbol = symbols.get(value);
+        return (symbol != null) ? symbol.lowerCase() : value.toLowerCase();
+    }
+
+    /**
+     * @param value the string
+     * @return The case-folded string, cached (and canonical) for interned strings
+     */
+    public String foldCase(final String value) {
+        Symbol symbol = symbols.get(value);
+        return (symbol != null) ? symbol.folded() : fold(value);
+    }
+
+    /**
+     * @param first  the first string
+     * @param second the second string
+     * @return Same as String.equalsIgnoreCase, a reference comparison for interned strings
+     */
+    public boolean equalsIgnoreCase(final String first, final String second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+
+        Symbol firstSymbol = symbols.get(first);
+        Symbol secondSymbol = symbols.get(second);
+        if (firstSymbol != null && secondSymbol != null) {
+            return firstSymbol.folded() == secondSymbol.folded();
+        }
+
+        return first.equalsIgnoreCase(second);
+    }
+
+    /**
+     * Canonical string with its derived forms
+     */
+    private record Symbol(String value, String lowerCase, String folded) {
+    }
+}
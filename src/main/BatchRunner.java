@@ -0,0 +1,168 @@
+package main;
+
+import checker.CheckerConstants;
+import fileio.serialization.SerializationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs all input files of the tests directory in parallel, on a bounded worker pool.
+ * <p>
+ * Every file runs in its own session, while the library input is parsed once and shared
+ * (it is never modified). The outputs are the same files the sequential run writes.
+ * Per-file timings and the overall throughput are printed at the end.
+ * <p>
+ * Arguments (all optional): {@code --threads 8 --lanes 1}, where lanes is the number of
+ * parallel lanes within each file
+ */
+public final class BatchRunner {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The run of one input file
+     *
+     * @param name     the input file name
+     * @param commands the number of executed commands
+     * @param nanos    the run time
+     */
+    private record FileRun(String name, int commands, long nanos) {
+        /**
+         * @return The executed commands per second
+         */
+        double throughput() {
+            return (nanos == 0) ? 0.0 : commands * NANOS_PER_SECOND / nanos;
+        }
+    }
+
+    /**
+     * for coding style
+     */
+    private BatchRunner() {
+    }
+
+    /**
+     * @param args the runner parameters
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int lanes = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--lanes" -> lanes = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Path path = Paths.get(CheckerConstants.RESULT_PATH);
+        if (Files.exists(path)) {
+            File resultFile = new File(String.valueOf(path));
+            for (File file : Objects.requireNonNull(resultFile.listFiles())) {
+                file.delete();
+            }
+        }
+        Files.createDirectories(path);
+
+        /* Longest files first, so that the last workers do not start a long file late */
+        List<File> files = new ArrayList<>(Arrays.asList(Objects.requireNonNull(
+                new File(CheckerConstants.TESTS_PATH).listFiles())));
+        files.removeIf(file -> file.getName().startsWith("library") || file.isDirectory());
+        files.sort(Comparator.comparingLong(File::length).reversed());
+
+        /* Parsed once, then shared by all sessions */
+        SerializationContext.getInstance().readLibrary(Main.LIBRARY_PATH);
+
+        long start = System.nanoTime();
+        List<FileRun> runs = run(files, threads, lanes);
+        long total = System.nanoTime() - start;
+
+        report(runs, total, threads);
+    }
+
+    /**
+     * @param files   the input files
+     * @param threads the number of workers
+     * @param lanes   the number of lanes within each file
+     * @return The file runs, in file name order
+     * @throws IOException if any file failed, after all files have been run
+     */
+    private static List<FileRun> run(final List<File> files, final int threads,
+                                     final int lanes) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<FileRun>> futures = new ArrayList<>();
+        for (File file : files) {
+            futures.add(workers.submit(() -> {
+                long start = System.nanoTime();
+                int commands = Main.action(file.getName(),
+                        CheckerConstants.OUT_PATH + file.getName(), lanes);
+                return new FileRun(file.getName(), commands, System.nanoTime() - start);
+            }));
+        }
+        workers.shutdown();
+
+        List<FileRun> runs = new ArrayList<>();
+        IOException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                runs.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                System.err.println(files.get(i).getName() + " failed: " + e.getCause());
+                if (failure == null) {
+                    failure = new IOException(files.get(i).getName() + " failed", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running " + files.get(i).getName(), e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        runs.sort(Comparator.comparing(FileRun::name));
+        return runs;
+    }
+
+    /**
+     * Prints one line per file, then the totals
+     *
+     * @param runs    the file runs
+     * @param total   the wall time of all runs
+     * @param threads the number of workers
+     */
+    private static void report(final List<FileRun> runs, final long total, final int threads) {
+        System.out.printf("%-30s %10s %12s %14s%n", "file", "commands", "ms", "commands/s");
+
+        int commands = 0;
+        long busy = 0;
+        for (FileRun run : runs) {
+            System.out.printf(Locale.ROOT, "%-30s %10d %12.1f %14.0f%n", run.name(),
+                    run.commands(), run.nanos() / NANOS_PER_MILLI, run.throughput());
+            commands += run.commands();
+            busy += run.nanos();
+        }
+
+        FileRun overall = new FileRun("total", commands, total);
+        System.out.printf(Locale.ROOT, "%-30s %10d %12.1f %14.0f%n", overall.name(),
+                overall.commands(), total / NANOS_PER_MILLI, overall.throughput());
+        System.out.printf(Locale.ROOT, "%d files on %d threads, %.2fx faster than one by one%n",
+                runs.size(), threads, (total == 0) ? 0.0 : (double) busy / total);
+    }
+}
@@ -1,17 +1,20 @@
 package main;
 
-import app.admin.Admin;
 import checker.Checker;
 import checker.CheckerConstants;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import databases.UserDatabase;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import databases.EngineSession;
 import fileio.commands.statistics.EndProgramResponse;
 import fileio.input.LibraryInput;
+import fileio.serialization.SerializationContext;
 import fileio.commands.handler.CommandHandler;
+import fileio.commands.handler.LaneExecutor;
 import fileio.commands.wrapper.CommandWrapper;
-import databases.Library;
 
 import java.io.File;
 import java.io.IOException;
@@ -68,42 +71,81 @@ public final class Main {
     }
 
     /**
+     * Streams the commands of the input file one at a time and writes each response
+     * as soon as it is computed, so memory does not grow with the number of commands.
+     *
      * @param filePathInput for input file
      * @param filePathOutput for output file
+     * @return The number of executed commands
      * @throws IOException in case of exceptions to reading / writing
      */
-    public static void action(final String filePathInput,
-                              final String filePathOutput) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        LibraryInput library = objectMapper.readValue(new File(LIBRARY_PATH), LibraryInput.class);
-
-        ArrayNode outputs = objectMapper.createArrayNode();
-
-        /* !!! The clear method should be removed in production !!! */
-        Library.getInstance().clear();
-        UserDatabase.getInstance().clear();
-        EndProgramResponse.clearSongs();
-
-        Admin.addToDatabase(library);
-
-        Library libraryWrapper = Library.getInstance();
-        CommandWrapper[] inputCommands = objectMapper.readValue(
-                new File(CheckerConstants.TESTS_PATH + filePathInput),
-                CommandWrapper[].class
-        );
-
-        for (CommandWrapper command : inputCommands) {
-            outputs.add(
-                    CommandHandler.executeCommand(command).toNode()
-            );
-        }
+    public static int action(final String filePathInput,
+                             final String filePathOutput) throws IOException {
+        return action(filePathInput, filePathOutput, 1);
+    }
+
+    /**
+     * Runs an input file, executing the commands of different users on parallel lanes.
+     * The output is the same as for a sequential run
+     *
+     * @param filePathInput for input file
+     * @param filePathOutput for output file
+     * @param lanes the number of lanes (1 for a sequential run)
+     * @return The number of executed commands
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static int action(final String filePathInput, final String filePathOutput,
+                             final int lanes) throws IOException {
+        SerializationContext context = SerializationContext.getInstance();
+        LibraryInput library = context.readLibrary(LIBRARY_PATH);
+
+        /* Every input file runs in a fresh session */
+        EngineSession session = new EngineSession();
+        session.getAdmin().addToDatabase(library);
+
+        try (JsonParser parser = context.getObjectMapper().createParser(
+                new File(CheckerConstants.TESTS_PATH + filePathInput));
+             JsonGenerator generator = context.getPrettyWriter()
+                     .createGenerator(new File(filePathOutput), JsonEncoding.UTF8)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw MismatchedInputException.from(parser, CommandWrapper[].class,
+                        "Expected an array of commands");
+            }
 
-        EndProgramResponse endProgramResponse = new EndProgramResponse("endProgram");
-        endProgramResponse.getResponse(libraryWrapper, UserDatabase.getInstance(),
-                inputCommands[inputCommands.length - 1]);
-        outputs.add(endProgramResponse.toNode());
+            generator.writeStartArray();
+
+            CommandWrapper lastCommand = null;
+            int count = 0;
+            if (lanes <= 1) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    lastCommand = context.getCommandReader().readValue(parser);
+                    generator.writeTree(
+                            CommandHandler.executeCommand(session, lastCommand).toNode());
+                    count++;
+                }
+            } else {
+                try (LaneExecutor executor = new LaneExecutor(session, lanes)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        lastCommand = context.getCommandReader().readValue(parser);
+                        for (JsonNode node : executor.execute(lastCommand)) {
+                            generator.writeTree(node);
+                        }
+                        count++;
+                    }
+
+                    for (JsonNode node : executor.flush()) {
+                        generator.writeTree(node);
+                    }
+                }
+            }
+
+            EndProgramResponse endProgramResponse = new EndProgramResponse("endProgram");
+            endProgramResponse.getResponse(session.getLibrary(), session.getUserDatabase(),
+                    lastCommand);
+            generator.writeTree(endProgramResponse.toNode());
 
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePathOutput), outputs);
+            generator.writeEndArray();
+            return count;
+        }
     }
 }
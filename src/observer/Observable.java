@@ -1,12 +1,17 @@
 package observer;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Observable abstract class. Stores observers and can send notifications.
  */
-public final class Observable {
+public final class Observable implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final List<Observer> observers = new LinkedList<>();
 
     /**
@@ -0,0 +1,474 @@
+package server;
+
+import checker.CheckerConstants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import databases.EngineSession;
+import databases.journal.CommandJournal;
+import databases.snapshot.SessionSnapshot;
+import fileio.commands.handler.CommandHandler;
+import fileio.commands.wrapper.CommandWrapper;
+import fileio.serialization.SerializationContext;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Serves the commands of a session over TCP, as newline-delimited JSON.
+ * <p>
+ * Every line received is a command, in the input file format, and is answered by one line
+ * holding its response (or an {@code error} object). Each connection has its own thread
+ * (virtual when available), which parses the commands and writes the responses. The commands
+ * of all connections are executed by a single engine thread, in arrival order, so the session
+ * is never accessed concurrently.
+ * <p>
+ * Requests may be pipelined: a connection sends commands without waiting for their responses,
+ * which always come back in request order. The engine only moves forward in time, so commands
+ * arriving with an older timestamp run at the latest timestamp seen.
+ * <p>
+ * With a snapshot file, the server restores its session from it (if present) instead of
+ * loading the library, and writes it back on shutdown.
+ * <p>
+ * With a journal directory, every accepted command is appended to a write-ahead journal before
+ * it runs, and is answered only once it is on disk. On startup, the commands journaled after
+ * the snapshot are replayed. A snapshot is written every {@code --checkpoint} commands, after
+ * which the journal segments it covers are deleted, so replays stay short. The journal needs
+ * a snapshot file, since without checkpoints it would grow forever.
+ * <p>
+ * Checkpoints only pause the engine thread while the session is serialized in memory, which
+ * takes time in proportion to the state size (not to the commands since the last one). The
+ * snapshot is written and synced by a checkpoint thread while further commands run; a
+ * checkpoint falling due while the previous one is still being written is postponed.
+ * <p>
+ * Arguments (all optional): {@code --port 7070 --library input/library/library.json
+ * --snapshot state.bin --journal journal --checkpoint 100000 --segment-size 67108864}
+ */
+public final class CommandServer implements AutoCloseable {
+    /* Pipelined commands executed before the connection writes their responses */
+    private static final int PIPELINE_DEPTH = 64;
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PORT = 7070;
+    private static final int DEFAULT_CHECKPOINT = 100_000;
+    private static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private final EngineSession session;
+    private final ServerSocket serverSocket;
+    /* The single writer of the session */
+    private final ExecutorService engine = Executors.newSingleThreadExecutor();
+    /* Writes the checkpoints serialized by the engine thread */
+    private final ExecutorService checkpointWriter = Executors.newSingleThreadExecutor();
+    private final ExecutorService connections = ConnectionThreads.newExecutor();
+
+    /* Latest timestamp executed, only accessed by the engine thread */
+    private int currentTime;
+    @Getter
+    private volatile boolean closed;
+
+    /* Optional write-ahead journal and checkpoints, only used by the engine thread */
+    private CommandJournal journal;
+    private Path checkpointPath;
+    private int checkpointInterval;
+    private int sinceCheckpoint;
+    /* The checkpoint being written, if any */
+    private Future<?> checkpointWrite;
+
+    /**
+     * The response to a command, with the journal number of the command (0 if not journaled)
+     *
+     * @param response the response
+     * @param sequence the journal number
+     */
+    private record Executed(JsonNode response, long sequence) {
+    }
+
+    /**
+     * Binds the server to the loopback address. The server accepts connections after start
+     *
+     * @param session the session the commands run in
+     * @param port    the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public CommandServer(final EngineSession session, final int port) throws IOException {
+        this.session = session;
+        currentTime = session.getUserDatabase().getPlayerClock().getCurrentTime();
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @param args the server parameters
+     * @throws IOException in case of exceptions to reading the library or binding the port
+     */
+    public static void main(final String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String libraryPath = CheckerConstants.TESTS_PATH + "library/library.json";
+        Path snapshotPath = null;
+        Path journalPath = null;
+        int checkpoint = DEFAULT_CHECKPOINT;
+        long segmentSize = DEFAULT_SEGMENT_SIZE;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--library" -> libraryPath = args[i + 1];
+                case "--snapshot" -> snapshotPath = Paths.get(args[i + 1]);
+                case "--journal" -> journalPath = Paths.get(args[i + 1]);
+                case "--checkpoint" -> checkpoint = Integer.parseInt(args[i + 1]);
+                case "--segment-size" -> segmentSize = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (journalPath != null && snapshotPath == null) {
+            throw new IllegalArgumentException("--journal needs --snapshot, or the journal is"
+                    + " never compacted");
+        }
+
+        EngineSession session;
+        long sequence = 0;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            sequence = SessionSnapshot.readSequence(snapshotPath);
+            session = SessionSnapshot.read(snapshotPath);
+        } else {
+            session = new EngineSession();
+            session.getAdmin().addToDatabase(
+                    SerializationContext.getInstance().readLibrary(libraryPath));
+        }
+
+        CommandServer server = new CommandServer(session, port);
+        if (journalPath != null) {
+            CommandJournal journal = CommandJournal.open(journalPath, segmentSize, sequence + 1);
+            long replayed = server.recover(journal, sequence);
+            System.out.println("Replayed " + replayed + " journaled commands");
+
+            server.checkpointPath = snapshotPath;
+            server.checkpointInterval = checkpoint;
+        }
+        if (snapshotPath != null) {
+            Path path = snapshotPath;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.snapshot(path);
+                    if (server.journal != null) {
+                        server.journal.close();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Shutdown failed: " + e.getMessage());
+                }
+            }));
+        }
+
+        System.out.println("Serving on port " + server.getPort()
+                + (ConnectionThreads.isVirtual() ? " (virtual threads)" : " (platform threads)"));
+
+        /* Connection threads are daemons, so the main thread keeps accepting */
+        server.acceptAll();
+    }
+
+    /**
+     * Replays the journaled commands after the snapshot the session was restored from, then
+     * journals all further commands. Must be called before start
+     *
+     * @param commandJournal   the journal
+     * @param snapshotSequence the number of the last journaled command in the session
+     * @return The number of replayed commands
+     * @throws IOException in case of exceptions to reading the journal
+     */
+    public long recover(final CommandJournal commandJournal, final long snapshotSequence)
+            throws IOException {
+        long replayed = commandJournal.replay(snapshotSequence, (sequence, timestamp, line) -> {
+            CommandWrapper command;
+            try {
+                command = SerializationContext.getInstance().getCommandReader().readValue(line);
+            } catch (IOException e) {
+                /* Only parsed commands are journaled */
+                throw new IllegalStateException("Corrupt journal record " + sequence, e);
+            }
+
+            command.setTimestamp(timestamp);
+            currentTime = Math.max(currentTime, timestamp);
+            try {
+                CommandHandler.executeCommand(session, command);
+            } catch (RuntimeException e) {
+                /* The command failed the same way when it was first run */
+            }
+        });
+
+        journal = commandJournal;
+        return replayed;
+    }
+
+    /**
+     * @return The bound port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections, on a connection thread
+     */
+    public void start() {
+        connections.execute(this::acceptAll);
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    private void acceptAll() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the commands of a connection until the client closes it
+     *
+     * @param socket the connection
+     */
+    private void serve(final Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+
+            Queue<Future<Executed>> pending = new ArrayDeque<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    pending.add(submit(line));
+                }
+
+                /* Responses are written once the pipelined requests were all read */
+                if (!in.ready() || pending.size() >= PIPELINE_DEPTH) {
+                    writeAll(pending, out);
+                }
+            }
+
+            writeAll(pending, out);
+        } catch (SocketException e) {
+            /* The client went away */
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Parses a command and queues it on the engine thread
+     *
+     * @param line the command, as JSON
+     * @return The future response
+     */
+    private Future<Executed> submit(final String line) {
+        CommandWrapper command;
+        try {
+            command = SerializationContext.getInstance().getCommandReader().readValue(line);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(new Executed(
+                    error("Invalid command: " + e.getOriginalMessage()), 0));
+        }
+
+        return engine.submit(() -> execute(command, line));
+    }
+
+    /**
+     * Executes a command on the engine thread, journaling it first
+     *
+     * @param command the command
+     * @param line    the command, as received
+     * @return The response
+     * @throws IOException if the command cannot be journaled (it is then not executed)
+     */
+    private Executed execute(final CommandWrapper command, final String line)
+            throws IOException {
+        currentTime = Math.max(currentTime, command.getTimestamp());
+        command.setTimestamp(currentTime);
+
+        long sequence = 0;
+        if (journal != null) {
+            sequence = journal.append(currentTime, line.getBytes(StandardCharsets.UTF_8));
+        }
+
+        JsonNode response = CommandHandler.executeCommand(session, command).toNode();
+
+        if (checkpointPath != null && ++sinceCheckpoint >= checkpointInterval
+                && (checkpointWrite == null || checkpointWrite.isDone())) {
+            checkpointInBackground();
+        }
+        return new Executed(response, sequence);
+    }
+
+    /**
+     * Serializes the session on the engine thread, then writes it and deletes the journal
+     * segments it covers on the checkpoint thread
+     *
+     * @throws IOException in case of exceptions to serializing
+     */
+    private void checkpointInBackground() throws IOException {
+        sinceCheckpoint = 0;
+        long sequence = journal.getLastSequence();
+        byte[] snapshot = SessionSnapshot.serialize(session, sequence);
+
+        Path path = checkpointPath;
+        CommandJournal compacted = journal;
+        checkpointWrite = checkpointWriter.submit(() -> {
+            try {
+                SessionSnapshot.write(snapshot, path);
+                compacted.compact(sequence);
+            } catch (IOException e) {
+                /* The journal is kept, so the next checkpoint covers the same commands */
+                System.err.println("Checkpoint failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot on the engine thread, then deletes the journal segments it covers.
+     * A checkpoint still being written is waited for first, so it cannot replace this one
+     *
+     * @param path the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    private void checkpoint(final Path path) throws IOException {
+        sinceCheckpoint = 0;
+        awaitCheckpointWrite();
+        if (journal == null) {
+            SessionSnapshot.write(session, path);
+            return;
+        }
+
+        long sequence = journal.getLastSequence();
+        SessionSnapshot.write(session, sequence, path);
+        journal.compact(sequence);
+    }
+
+    /**
+     * Waits for the checkpoint being written, if any
+     *
+     * @throws IOException if interrupted while waiting
+     */
+    private void awaitCheckpointWrite() throws IOException {
+        if (checkpointWrite == null) {
+            return;
+        }
+
+        try {
+            checkpointWrite.get();
+        } catch (ExecutionException e) {
+            /* Failures are reported by the checkpoint thread */
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a checkpoint", e);
+        }
+        checkpointWrite = null;
+    }
+
+    /**
+     * Writes the responses of all pending commands, in request order, once their commands
+     * are journaled
+     *
+     * @param pending the pending responses
+     * @param out     the connection output
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeAll(final Queue<Future<Executed>> pending, final Writer out)
+            throws IOException {
+        ObjectMapper mapper = SerializationContext.getInstance().getObjectMapper();
+
+        while (!pending.isEmpty()) {
+            JsonNode response;
+            try {
+                Executed executed = pending.poll().get();
+                response = executed.response();
+                if (executed.sequence() != 0) {
+                    journal.awaitDurable(executed.sequence());
+                }
+            } catch (ExecutionException e) {
+                response = error("Command failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a response", e);
+            }
+
+            out.write(mapper.writeValueAsString(response));
+            out.write('\n');
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Writes a snapshot of the session, between two commands. With a journal, the journal
+     * segments it covers are deleted
+     *
+     * @param path the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void snapshot(final Path path) throws IOException {
+        try {
+            engine.submit(() -> {
+                checkpoint(path);
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Snapshot failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing a snapshot", e);
+        }
+    }
+
+    /**
+     * @param message the error message
+     * @return An error response
+     */
+    private static JsonNode error(final String message) {
+        ObjectNode node = SerializationContext.getInstance().createObjectNode();
+        node.put("error", message);
+        return node;
+    }
+
+    /**
+     * Stops accepting connections and stops the engine thread
+     *
+     * @throws IOException in case of exceptions to closing the server socket
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        engine.shutdown();
+        checkpointWriter.shutdown();
+        connections.shutdownNow();
+    }
+}
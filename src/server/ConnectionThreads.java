@@ -0,0 +1,59 @@
+package server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors running one thread per connection.
+ * <p>
+ * Virtual threads are used when the runtime provides them (Java 21, or Java 19 / 20 with
+ * preview features enabled). Otherwise, connections run on daemon platform threads with small
+ * stacks, so that thousands of idle connections stay cheap.
+ */
+public final class ConnectionThreads {
+    /* Connection threads only parse and write single lines */
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    /**
+     * for coding style
+     */
+    private ConnectionThreads() {
+    }
+
+    /**
+     * @return An executor starting a new thread for every task
+     */
+    public static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(platformThreads());
+        }
+    }
+
+    /**
+     * @return Whether the executors run virtual threads
+     */
+    public static boolean isVirtual() {
+        ExecutorService executor = newExecutor();
+        executor.shutdown();
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * @return A factory of daemon platform threads with small stacks
+     */
+    private static ThreadFactory platformThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(null, task, "connection-" + count.incrementAndGet(),
+                    PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}